@@ -0,0 +1,36 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/** Deposits, withdrawals and transfers, each in its own transaction against PostgreSQL. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class AccountServiceBenchmark {
+
+    @Benchmark
+    public AccountDTO depositToAccount(EmbeddedBanking banking) {
+        return banking.accountService.depositToAccount(banking.userId, banking.accountId, 1);
+    }
+
+    @Benchmark
+    public AccountDTO withdrawFromAccount(EmbeddedBanking banking) {
+        return banking.accountService.withdrawFromAccount(banking.userId, banking.accountId, 1);
+    }
+
+    @Benchmark
+    public void transfer(EmbeddedBanking banking) {
+        banking.transferService.transfer(banking.userId, banking.transferRequest);
+    }
+}
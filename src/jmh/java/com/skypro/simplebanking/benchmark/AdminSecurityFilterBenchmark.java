@@ -0,0 +1,64 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.configuration.AdminSecurityFilter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.FilterChain;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AdminSecurityFilter} for requests with a valid, a wrong and no admin key. The filter runs
+ * on every request, so this is a per-request overhead.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdminSecurityFilterBenchmark {
+    private static final String ADMIN_TOKEN = "SUPER_SECRET_KEY_FROM_ADMIN";
+
+    @Param({"valid", "wrong", "missing"})
+    public String adminKey;
+
+    private AdminSecurityFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private FilterChain filterChain;
+
+    @Setup
+    public void setUp() {
+        filter = new AdminSecurityFilter(ADMIN_TOKEN);
+        request = new MockHttpServletRequest("POST", "/user/");
+        if (adminKey.equals("valid")) {
+            request.addHeader("X-SECURITY-ADMIN-KEY", ADMIN_TOKEN);
+        } else if (adminKey.equals("wrong")) {
+            request.addHeader("X-SECURITY-ADMIN-KEY", "WRONG_KEY");
+        }
+        response = new MockHttpServletResponse();
+        filterChain = (servletRequest, servletResponse) -> {
+        };
+    }
+
+    @Benchmark
+    public void doFilter() throws Exception {
+        // A fresh attribute set every time, otherwise OncePerRequestFilter skips the second call.
+        request.clearAttributes();
+        filter.doFilter(request, response, filterChain);
+        SecurityContextHolder.clearContext();
+    }
+}
@@ -0,0 +1,76 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.SimpleBankingApplication;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.TransferService;
+import com.skypro.simplebanking.service.UserService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+
+/**
+ * The application on a random port and an embedded PostgreSQL, started once per trial. Benchmarks
+ * call the services directly, bypassing HTTP, locks and retries. Two users are created; the first
+ * one's account is funded so withdrawals and transfers never run dry.
+ */
+@State(Scope.Benchmark)
+public class EmbeddedBanking {
+    private static final long FUNDING = 1_000_000_000_000L;
+
+    AccountService accountService;
+    TransferService transferService;
+    long userId;
+    long accountId;
+    TransferRequest transferRequest;
+
+    private EmbeddedPostgres postgres;
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() throws IOException {
+        postgres = EmbeddedPostgres.start();
+        context = new SpringApplicationBuilder(SimpleBankingApplication.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--logging.level.root=WARN");
+        accountService = context.getBean(AccountService.class);
+        transferService = context.getBean(TransferService.class);
+
+        UserService userService = context.getBean(UserService.class);
+        UserDTO anna = userService.createUser("Anna", "Anna123");
+        UserDTO oleg = userService.createUser("Oleg", "Oleg123");
+        AccountDTO from = anna.getAccounts().get(0);
+        AccountDTO to = oleg.getAccounts().stream()
+                .filter(account -> account.getCurrency() == from.getCurrency())
+                .findFirst()
+                .orElseThrow();
+        userId = anna.getId();
+        accountId = from.getId();
+        accountService.depositToAccount(userId, accountId, FUNDING);
+
+        transferRequest = new TransferRequest();
+        transferRequest.setFromAccountId(from.getId());
+        transferRequest.setToUserId(oleg.getId());
+        transferRequest.setToAccountId(to.getId());
+        transferRequest.setAmount(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() throws IOException {
+        context.close();
+        postgres.close();
+    }
+}
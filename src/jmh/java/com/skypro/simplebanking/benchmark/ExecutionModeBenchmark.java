@@ -0,0 +1,135 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.skypro.simplebanking.SimpleBankingApplication;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.service.UserService;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares {@code app.execution.mode=platform} and {@code virtual} under many concurrent clients.
+ * Starts an embedded PostgreSQL, then for each mode starts the application on a random port and
+ * lets every client fetch an account in a closed loop: the next request is sent as soon as the
+ * previous response arrives. Not a JMH benchmark; run it with
+ * {@code mvn -Pjmh test-compile exec:java
+ * -Dexec.mainClass=com.skypro.simplebanking.benchmark.ExecutionModeBenchmark
+ * -Dexec.args="10000 PT30S"} on a Java 21 runtime, which it refuses to run without, since on
+ * Java 17 both modes would use platform threads. 10k clients need an open-files limit above 20k.
+ */
+public final class ExecutionModeBenchmark {
+    private static final String PASSWORD = "benchmark";
+    private static final Duration WARM_UP = Duration.ofSeconds(10);
+
+    private ExecutionModeBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException(
+                    "Virtual threads need Java 21, this runtime is Java " + Runtime.version().feature());
+        }
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        Duration duration = args.length > 1 ? Duration.parse(args[1]) : Duration.ofSeconds(30);
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.start()) {
+            List<String> results = new ArrayList<>();
+            for (String mode : List.of("platform", "virtual")) {
+                results.add(run(postgres, mode, clients, duration));
+            }
+            System.out.println("mode      clients  req/s     p50 ms  p99 ms  p99.9 ms  errors");
+            results.forEach(System.out::println);
+        }
+    }
+
+    private static String run(EmbeddedPostgres postgres, String mode, int clients, Duration duration)
+            throws Exception {
+        // Command-line arguments, unlike default properties, take precedence over application.properties.
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(SimpleBankingApplication.class)
+                .run(
+                        "--spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "--spring.datasource.username=postgres",
+                        "--spring.datasource.password=",
+                        "--server.port=0",
+                        "--server.tomcat.max-connections=" + (clients + 1000),
+                        "--server.tomcat.accept-count=" + clients,
+                        "--app.execution.mode=" + mode)) {
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            String username = "benchmark-" + mode;
+            UserDTO user = context.getBean(UserService.class).createUser(username, PASSWORD);
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://localhost:" + port + "/account/" + user.getAccounts().get(0).getId()))
+                    .header("Authorization", "Basic " + Base64.getEncoder()
+                            .encodeToString((username + ":" + PASSWORD).getBytes(StandardCharsets.UTF_8)))
+                    .build();
+            HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30)).build();
+
+            load(http, request, clients, WARM_UP, newTimer(), new AtomicLong());
+            Timer timer = newTimer();
+            AtomicLong errors = new AtomicLong();
+            load(http, request, clients, duration, timer, errors);
+
+            ValueAtPercentile[] percentiles = timer.takeSnapshot().percentileValues();
+            return String.format("%-9s %-8d %-9.0f %-7.1f %-7.1f %-9.1f %d",
+                    mode,
+                    clients,
+                    timer.count() / (double) duration.toSeconds(),
+                    percentiles[0].value(TimeUnit.MILLISECONDS),
+                    percentiles[1].value(TimeUnit.MILLISECONDS),
+                    percentiles[2].value(TimeUnit.MILLISECONDS),
+                    errors.get());
+        }
+    }
+
+    private static Timer newTimer() {
+        return Timer.builder("benchmark.request")
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .distributionStatisticExpiry(Duration.ofHours(1))
+                .distributionStatisticBufferLength(1)
+                .register(new SimpleMeterRegistry());
+    }
+
+    private static void load(HttpClient http, HttpRequest request, int clients, Duration duration,
+                             Timer timer, AtomicLong errors) {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<CompletableFuture<Void>> done = new ArrayList<>(clients);
+        for (int i = 0; i < clients; i++) {
+            CompletableFuture<Void> client = new CompletableFuture<>();
+            send(http, request, deadline, timer, errors, client);
+            done.add(client);
+        }
+        CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).join();
+    }
+
+    private static void send(HttpClient http, HttpRequest request, long deadline, Timer timer,
+                             AtomicLong errors, CompletableFuture<Void> done) {
+        if (System.nanoTime() >= deadline) {
+            done.complete(null);
+            return;
+        }
+        long start = System.nanoTime();
+        http.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, failure) -> {
+                    timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    if (failure != null || response.statusCode() != 200) {
+                        errors.incrementAndGet();
+                    }
+                    send(http, request, deadline, timer, errors, done);
+                });
+    }
+}
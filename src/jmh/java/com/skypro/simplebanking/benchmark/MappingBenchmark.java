@@ -0,0 +1,96 @@
+package com.skypro.simplebanking.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Entity to DTO mapping for users with many accounts, and JSON serialization of the resulting
+ * lists with an {@link ObjectMapper} configured the way Spring Boot configures its own.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappingBenchmark {
+    @Param({"3", "100", "1000"})
+    public int accountsPerUser;
+
+    @Param({"1", "100"})
+    public int users;
+
+    private List<User> entities;
+    private List<UserDTO> userDTOs;
+    private List<AccountDTO> accountDTOs;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        entities = new ArrayList<>(users);
+        long accountId = 0;
+        for (long userId = 1; userId <= users; userId++) {
+            User user = new User();
+            user.setId(userId);
+            user.setUsername("user" + userId);
+            List<Account> accounts = new ArrayList<>(accountsPerUser);
+            for (int i = 0; i < accountsPerUser; i++) {
+                Account account = new Account();
+                account.setId(++accountId);
+                account.setUser(user);
+                account.setAccountCurrency(AccountCurrency.values()[i % AccountCurrency.values().length]);
+                account.setAmount(1500L + i);
+                accounts.add(account);
+            }
+            user.setAccounts(accounts);
+            entities.add(user);
+        }
+        userDTOs = entities.stream().map(UserDTO::from).collect(Collectors.toList());
+        accountDTOs = userDTOs.stream()
+                .flatMap(user -> user.getAccounts().stream())
+                .collect(Collectors.toList());
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    }
+
+    @Benchmark
+    public List<UserDTO> userDTOFrom() {
+        return entities.stream().map(UserDTO::from).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<ListUserDTO> listUserDTOFrom() {
+        return entities.stream().map(ListUserDTO::from).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public byte[] serializeUserDTOs() throws Exception {
+        return objectMapper.writeValueAsBytes(userDTOs);
+    }
+
+    @Benchmark
+    public byte[] serializeAccountDTOs() throws Exception {
+        return objectMapper.writeValueAsBytes(accountDTOs);
+    }
+}
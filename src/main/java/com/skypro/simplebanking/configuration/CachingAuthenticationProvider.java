@@ -0,0 +1,49 @@
+package com.skypro.simplebanking.configuration;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.service.UserService;
+import java.util.Optional;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+  private final DaoAuthenticationProvider delegate;
+  private final CredentialCache credentialCache;
+
+  public CachingAuthenticationProvider(
+      UserService userService, PasswordEncoder passwordEncoder, CredentialCache credentialCache) {
+    this.delegate = new DaoAuthenticationProvider();
+    this.delegate.setUserDetailsService(userService);
+    this.delegate.setPasswordEncoder(passwordEncoder);
+    this.credentialCache = credentialCache;
+  }
+
+  @Override
+  public Authentication authenticate(Authentication authentication)
+      throws AuthenticationException {
+    String username = authentication.getName();
+    String password = String.valueOf(authentication.getCredentials());
+    Optional<BankingUserDetails> cachedUserDetails = credentialCache.get(username, password);
+    if (cachedUserDetails.isPresent()) {
+      BankingUserDetails userDetails = cachedUserDetails.get();
+      return UsernamePasswordAuthenticationToken.authenticated(
+          userDetails, null, userDetails.getAuthorities());
+    }
+    Authentication result = delegate.authenticate(authentication);
+    if (result.getPrincipal() instanceof BankingUserDetails userDetails) {
+      credentialCache.put(username, password, userDetails);
+    }
+    return result;
+  }
+
+  @Override
+  public boolean supports(Class<?> authentication) {
+    return delegate.supports(authentication);
+  }
+}
@@ -0,0 +1,145 @@
+package com.skypro.simplebanking.configuration;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.entity.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers credentials that already passed the BCrypt check, so repeated Basic requests with the
+ * same username and password skip both the user lookup and the hash comparison. Passwords are
+ * kept only as an HMAC digest under a per-process random salt. Entries are evicted after the commit
+ * of every insert, update or delete of a {@link User}, whichever code path made it, so a recreated
+ * user is never served with the id of the old one.
+ */
+@Component
+public class CredentialCache
+    implements SmartInitializingSingleton,
+        PostCommitInsertEventListener,
+        PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+  private static final String DIGEST_ALGORITHM = "HmacSHA256";
+
+  private final Cache<String, Entry> cache;
+  private final SecretKeySpec salt;
+  private final EntityManagerFactory entityManagerFactory;
+
+  public CredentialCache(
+      @Value("${app.security.credential-cache.ttl}") Duration ttl,
+      @Value("${app.security.credential-cache.max-size}") long maxSize,
+      MeterRegistry meterRegistry,
+      EntityManagerFactory entityManagerFactory) {
+    this.entityManagerFactory = entityManagerFactory;
+    this.cache =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().build();
+    byte[] saltBytes = new byte[32];
+    new SecureRandom().nextBytes(saltBytes);
+    this.salt = new SecretKeySpec(saltBytes, DIGEST_ALGORITHM);
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+  }
+
+  public Optional<BankingUserDetails> get(String username, String password) {
+    return Optional.ofNullable(cache.getIfPresent(username))
+        .filter(entry -> MessageDigest.isEqual(entry.digest, digest(password)))
+        .map(entry -> entry.userDetails);
+  }
+
+  public void put(String username, String password, BankingUserDetails userDetails) {
+    cache.put(username, new Entry(digest(password), userDetails));
+  }
+
+  public void evict(String username) {
+    cache.invalidate(username);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    EventListenerRegistry listeners =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    listeners.appendListeners(EventType.POST_COMMIT_INSERT, this);
+    listeners.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+    listeners.appendListeners(EventType.POST_COMMIT_DELETE, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    evictUser(event.getEntity());
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    evictUser(event.getEntity());
+  }
+
+  @Override
+  public void onPostUpdateCommitFailed(PostUpdateEvent event) {}
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    evictUser(event.getEntity());
+  }
+
+  @Override
+  public void onPostDeleteCommitFailed(PostDeleteEvent event) {}
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return true;
+  }
+
+  private void evictUser(Object entity) {
+    if (entity instanceof User user) {
+      evict(user.getUsername());
+    }
+  }
+
+  private byte[] digest(String password) {
+    try {
+      Mac mac = Mac.getInstance(DIGEST_ALGORITHM);
+      mac.init(salt);
+      return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+    private final byte[] digest;
+    private final BankingUserDetails userDetails;
+
+    private Entry(byte[] digest, BankingUserDetails userDetails) {
+      this.digest = digest;
+      this.userDetails = userDetails;
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.skypro.simplebanking.configuration;
+
+import com.zaxxer.hikari.HikariDataSource;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * {@code app.execution.mode=virtual} runs every request, and the transactional service calls made
+ * on it, on its own virtual thread instead of Tomcat's fixed pool, so requests waiting on the
+ * database no longer exhaust the request threads. Because nothing then bounds how many requests
+ * reach the data source, connections are handed out through {@link
+ * ConnectionLimitingDataSource}, which admits {@code app.execution.db-concurrency} callers and
+ * fails the others after {@code app.execution.db-acquire-timeout}. Keep the limit at or below the
+ * pool's {@code maximum-pool-size}, so callers wait on the semaphore rather than inside the pool.
+ * Virtual threads need Java 21; the executor is looked up reflectively so the build stays on Java
+ * 17, and on an older runtime Tomcat keeps its platform-thread pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.execution.mode", havingValue = "virtual")
+public class ExecutionModeConfiguration {
+  private static final Logger log = LoggerFactory.getLogger(ExecutionModeConfiguration.class);
+
+  @Bean
+  public TomcatProtocolHandlerCustomizer<?> virtualThreadExecutorCustomizer() {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    return protocolHandler -> {
+      if (executor != null) {
+        protocolHandler.setExecutor(executor);
+      }
+    };
+  }
+
+  @Bean
+  public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(
+      @Value("${app.execution.db-concurrency}") int dbConcurrency,
+      @Value("${app.execution.db-acquire-timeout}") Duration dbAcquireTimeout) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+          return new ConnectionLimitingDataSource(dataSource, dbConcurrency, dbAcquireTimeout);
+        }
+        return bean;
+      }
+    };
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      return (ExecutorService)
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.warn(
+          "Virtual threads are not available on Java {}, requests stay on platform threads",
+          Runtime.version().feature());
+      return null;
+    }
+  }
+}
@@ -0,0 +1,67 @@
+package com.skypro.simplebanking.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+/**
+ * Records how long each physical transaction stays open, from begin to the release of its
+ * connection, in {@code banking.transaction.duration}, tagged read-only and commit or rollback.
+ * Participating transactions are part of the outer one and are not recorded separately.
+ */
+class TimedJpaTransactionManager extends JpaTransactionManager {
+  private final transient MeterRegistry meterRegistry;
+  private final transient Map<Object, Started> started = new ConcurrentHashMap<>();
+
+  TimedJpaTransactionManager(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Override
+  protected void doBegin(Object transaction, TransactionDefinition definition) {
+    super.doBegin(transaction, definition);
+    started.put(transaction, new Started(System.nanoTime(), definition.isReadOnly()));
+  }
+
+  @Override
+  protected void doRollback(DefaultTransactionStatus status) {
+    Started transaction = started.get(status.getTransaction());
+    if (transaction != null) {
+      transaction.rolledBack = true;
+    }
+    super.doRollback(status);
+  }
+
+  @Override
+  protected void doCleanupAfterCompletion(Object transaction) {
+    try {
+      super.doCleanupAfterCompletion(transaction);
+    } finally {
+      Started begun = started.remove(transaction);
+      if (begun != null) {
+        Timer.builder("banking.transaction.duration")
+            .tag("read-only", String.valueOf(begun.readOnly))
+            .tag("outcome", begun.rolledBack ? "rollback" : "commit")
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - begun.startNanos, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  private static final class Started {
+    private final long startNanos;
+    private final boolean readOnly;
+    private volatile boolean rolledBack;
+
+    private Started(long startNanos, boolean readOnly) {
+      this.startNanos = startNanos;
+      this.readOnly = readOnly;
+    }
+  }
+}
@@ -0,0 +1,22 @@
+package com.skypro.simplebanking.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.transaction.TransactionManagerCustomizers;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+/** Replaces Spring Boot's JPA transaction manager with one that times every transaction. */
+@Configuration
+public class TransactionMetricsConfiguration {
+  @Bean
+  public PlatformTransactionManager transactionManager(
+      MeterRegistry meterRegistry,
+      ObjectProvider<TransactionManagerCustomizers> transactionManagerCustomizers) {
+    TimedJpaTransactionManager transactionManager = new TimedJpaTransactionManager(meterRegistry);
+    transactionManagerCustomizers.ifAvailable(
+        customizers -> customizers.customize(transactionManager));
+    return transactionManager;
+  }
+}
@@ -0,0 +1,29 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.SlotConfigurationRequest;
+import com.skypro.simplebanking.service.AccountSlotService;
+import javax.validation.Valid;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/admin/account")
+public class AccountAdminController {
+  private final AccountSlotService accountSlotService;
+
+  public AccountAdminController(AccountSlotService accountSlotService) {
+    this.accountSlotService = accountSlotService;
+  }
+
+  @PutMapping("/{id}/slots")
+  public AccountDTO configureSlots(
+      @PathVariable("id") Long accountId,
+      @RequestBody @Valid SlotConfigurationRequest slotConfigurationRequest) {
+    return accountSlotService.configure(accountId, slotConfigurationRequest.getSlots());
+  }
+
+  @PostMapping("/{id}/slots/rebalance")
+  public AccountDTO rebalanceSlots(@PathVariable("id") Long accountId) {
+    return accountSlotService.rebalance(accountId);
+  }
+}
@@ -3,38 +3,112 @@ package com.skypro.simplebanking.controller;
 import com.skypro.simplebanking.dto.AccountDTO;
 import com.skypro.simplebanking.dto.BalanceChangeRequest;
 import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.service.AccountLockManager;
 import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.ConcurrencyRetry;
+import com.skypro.simplebanking.service.DepositCoalescer;
+import com.skypro.simplebanking.service.IdempotencyService;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
 @RequestMapping("/account")
+@Profile("!async")
 public class AccountController {
   private final AccountService accountService;
+  private final ConcurrencyRetry concurrencyRetry;
+  private final IdempotencyService idempotencyService;
+  private final AccountLockManager accountLockManager;
+  private final Optional<DepositCoalescer> depositCoalescer;
 
-  public AccountController(AccountService accountService) {
+  public AccountController(
+      AccountService accountService,
+      ConcurrencyRetry concurrencyRetry,
+      IdempotencyService idempotencyService,
+      AccountLockManager accountLockManager,
+      Optional<DepositCoalescer> depositCoalescer) {
     this.accountService = accountService;
+    this.concurrencyRetry = concurrencyRetry;
+    this.idempotencyService = idempotencyService;
+    this.accountLockManager = accountLockManager;
+    this.depositCoalescer = depositCoalescer;
   }
 
   @GetMapping("/{id}")
-  public AccountDTO getUserAccount(Authentication authentication, @PathVariable("id") Long accountId) {
+  public ResponseEntity<AccountDTO> getUserAccount(Authentication authentication,
+                                                   @PathVariable("id") Long accountId) {
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return accountService.getAccount(bankingUserDetails.getId(), accountId);
+    AccountDTO account = accountService.getAccount(bankingUserDetails.getId(), accountId);
+    // Spring answers a matching If-None-Match with 304 from the ETag of the returned entity.
+    return ResponseEntity.ok().eTag(EntityTags.of(account)).body(account);
   }
 
   @PostMapping("/deposit/{id}")
   public AccountDTO depositToAccount(Authentication authentication,
                                      @PathVariable("id") Long accountId,
-                                     @RequestBody BalanceChangeRequest balanceChangeRequest){
+                                     @RequestBody BalanceChangeRequest balanceChangeRequest,
+                                     @RequestHeader(value = "Idempotency-Key", required = false)
+                                         String idempotencyKey){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return accountService.depositToAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    if (idempotencyKey == null && depositCoalescer.isPresent()) {
+      // Deposits of a group commit together, so the group leader takes the account lock.
+      return concurrencyRetry.execute(
+          "account.deposit",
+          () ->
+              depositCoalescer
+                  .get()
+                  .deposit(
+                      bankingUserDetails.getId(), accountId, balanceChangeRequest.getAmount()));
+    }
+    return concurrencyRetry.execute(
+        "account.deposit",
+        () ->
+            accountLockManager.withLocks(
+                "account.deposit",
+                List.of(accountId),
+                () ->
+                    idempotencyService.execute(
+                        bankingUserDetails.getId(),
+                        idempotencyKey,
+                        "account.deposit/" + accountId,
+                        balanceChangeRequest,
+                        AccountDTO.class,
+                        () ->
+                            accountService.depositToAccount(
+                                bankingUserDetails.getId(),
+                                accountId,
+                                balanceChangeRequest.getAmount()))));
   }
 
+
   @PostMapping("/withdraw/{id}")
   public AccountDTO withdrawFromAccount(Authentication authentication,
                                      @PathVariable("id") Long accountId,
-                                     @RequestBody BalanceChangeRequest balanceChangeRequest){
+                                     @RequestBody BalanceChangeRequest balanceChangeRequest,
+                                     @RequestHeader(value = "Idempotency-Key", required = false)
+                                         String idempotencyKey){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return accountService.withdrawFromAccount(bankingUserDetails.getId(),accountId, balanceChangeRequest.getAmount());
+    return concurrencyRetry.execute(
+        "account.withdraw",
+        () ->
+            accountLockManager.withLocks(
+                "account.withdraw",
+                List.of(accountId),
+                () ->
+                    idempotencyService.execute(
+                        bankingUserDetails.getId(),
+                        idempotencyKey,
+                        "account.withdraw/" + accountId,
+                        balanceChangeRequest,
+                        AccountDTO.class,
+                        () ->
+                            accountService.withdrawFromAccount(
+                                bankingUserDetails.getId(),
+                                accountId,
+                                balanceChangeRequest.getAmount()))));
   }
 }
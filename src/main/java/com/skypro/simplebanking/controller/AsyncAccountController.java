@@ -0,0 +1,75 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.BalanceChangeRequest;
+import com.skypro.simplebanking.service.AccountLockManager;
+import com.skypro.simplebanking.service.AccountService;
+import com.skypro.simplebanking.service.ConcurrencyRetry;
+import com.skypro.simplebanking.service.DepositCoalescer;
+import com.skypro.simplebanking.service.IdempotencyService;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * {@link AccountController} for the {@code async} profile: the same endpoints and semantics, run on
+ * {@link RequestOffloader} instead of the request thread. Every handler delegates to an {@link
+ * AccountController} instance, so the two profiles share one implementation.
+ */
+@RestController
+@RequestMapping("/account")
+@Profile("async")
+public class AsyncAccountController {
+  private final AccountController delegate;
+  private final RequestOffloader requestOffloader;
+
+  AsyncAccountController(
+      AccountService accountService,
+      ConcurrencyRetry concurrencyRetry,
+      IdempotencyService idempotencyService,
+      AccountLockManager accountLockManager,
+      Optional<DepositCoalescer> depositCoalescer,
+      RequestOffloader requestOffloader) {
+    this.delegate =
+        new AccountController(
+            accountService,
+            concurrencyRetry,
+            idempotencyService,
+            accountLockManager,
+            depositCoalescer);
+    this.requestOffloader = requestOffloader;
+  }
+
+  @GetMapping("/{id}")
+  public CompletableFuture<ResponseEntity<AccountDTO>> getUserAccount(
+      Authentication authentication, @PathVariable("id") Long accountId) {
+    return requestOffloader.supply(() -> delegate.getUserAccount(authentication, accountId));
+  }
+
+  @PostMapping("/deposit/{id}")
+  public CompletableFuture<AccountDTO> depositToAccount(
+      Authentication authentication,
+      @PathVariable("id") Long accountId,
+      @RequestBody BalanceChangeRequest balanceChangeRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return requestOffloader.supply(
+        () ->
+            delegate.depositToAccount(
+                authentication, accountId, balanceChangeRequest, idempotencyKey));
+  }
+
+  @PostMapping("/withdraw/{id}")
+  public CompletableFuture<AccountDTO> withdrawFromAccount(
+      Authentication authentication,
+      @PathVariable("id") Long accountId,
+      @RequestBody BalanceChangeRequest balanceChangeRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return requestOffloader.supply(
+        () ->
+            delegate.withdrawFromAccount(
+                authentication, accountId, balanceChangeRequest, idempotencyKey));
+  }
+}
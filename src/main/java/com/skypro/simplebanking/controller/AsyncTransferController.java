@@ -0,0 +1,88 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.dto.TransferStatusDTO;
+import com.skypro.simplebanking.service.AccountLockManager;
+import com.skypro.simplebanking.service.AsyncTransferService;
+import com.skypro.simplebanking.service.ConcurrencyRetry;
+import com.skypro.simplebanking.service.IdempotencyService;
+import com.skypro.simplebanking.service.TransferService;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * {@link TransferController} for the {@code async} profile. Transfers run on {@link
+ * RequestOffloader}; queueing a transfer and reading its status never touch a transaction for
+ * long, so they stay on the request thread.
+ */
+@RestController
+@RequestMapping("/transfer")
+@Profile("async")
+public class AsyncTransferController {
+  private final TransferController delegate;
+  private final RequestOffloader requestOffloader;
+
+  AsyncTransferController(
+      TransferService transferService,
+      ConcurrencyRetry concurrencyRetry,
+      IdempotencyService idempotencyService,
+      AsyncTransferService asyncTransferService,
+      AccountLockManager accountLockManager,
+      RequestOffloader requestOffloader) {
+    this.delegate =
+        new TransferController(
+            transferService,
+            concurrencyRetry,
+            idempotencyService,
+            asyncTransferService,
+            accountLockManager);
+    this.requestOffloader = requestOffloader;
+  }
+
+  @PostMapping
+  public CompletableFuture<Void> transfer(
+      Authentication authentication,
+      @RequestBody TransferRequest transferRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return requestOffloader.supply(
+        () -> {
+          delegate.transfer(authentication, transferRequest, idempotencyKey);
+          return null;
+        });
+  }
+
+  @PostMapping(headers = "Prefer=respond-async")
+  public ResponseEntity<TransferStatusDTO> submitTransfer(
+      Authentication authentication,
+      @RequestBody TransferRequest transferRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    return delegate.submitTransfer(authentication, transferRequest, idempotencyKey);
+  }
+
+  @GetMapping("/{id}")
+  public TransferStatusDTO getTransfer(Authentication authentication, @PathVariable UUID id) {
+    return delegate.getTransfer(authentication, id);
+  }
+
+  @PostMapping("/batch")
+  public CompletableFuture<List<TransferResultDTO>> transferBatch(
+      Authentication authentication,
+      @RequestBody List<TransferRequest> transferRequests,
+      @RequestParam(defaultValue = "true") boolean atomic) {
+    return requestOffloader.supply(
+        () -> delegate.transferBatch(authentication, transferRequests, atomic));
+  }
+}
@@ -0,0 +1,25 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.TokenDTO;
+import com.skypro.simplebanking.service.TokenService;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+  private final TokenService tokenService;
+
+  public AuthController(TokenService tokenService) {
+    this.tokenService = tokenService;
+  }
+
+  @PostMapping("/token")
+  public TokenDTO issueToken(Authentication authentication) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return tokenService.issue(bankingUserDetails);
+  }
+}
@@ -1,34 +1,104 @@
 package com.skypro.simplebanking.controller;
 
 import com.skypro.simplebanking.exception.*;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
 @ControllerAdvice
 public class BankingExceptionHandlers {
+  private final MeterRegistry meterRegistry;
+
+  public BankingExceptionHandlers(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
   @ExceptionHandler(value = {AccountNotFoundException.class})
-  public ResponseEntity<?> handleAccountNotFound() {
+  public ResponseEntity<?> handleAccountNotFound(AccountNotFoundException exception) {
+    countError(exception);
     return ResponseEntity.notFound().build();
   }
 
   @ExceptionHandler(value = {InsufficientFundsException.class})
   public ResponseEntity<?> handleInsufficientFunds(InsufficientFundsException exception) {
+    countError(exception);
     return ResponseEntity.badRequest().body(exception.getMessage());
   }
 
   @ExceptionHandler(value = {UserAlreadyExistsException.class})
-  public ResponseEntity<?> handleUserAlreadyExists() {
+  public ResponseEntity<?> handleUserAlreadyExists(UserAlreadyExistsException exception) {
+    countError(exception);
     return ResponseEntity.badRequest().build();
   }
 
   @ExceptionHandler(value = {InvalidAmountException.class})
-  public ResponseEntity<?> handleInvalidAmount() {
+  public ResponseEntity<?> handleInvalidAmount(InvalidAmountException exception) {
+    countError(exception);
     return ResponseEntity.badRequest().body("Amount should be more than 0");
   }
 
+  @ExceptionHandler(value = {BatchTooLargeException.class})
+  public ResponseEntity<?> handleBatchTooLarge(BatchTooLargeException exception) {
+    countError(exception);
+    return ResponseEntity.badRequest().body(exception.getMessage());
+  }
+
+  @ExceptionHandler(value = {InvalidIdempotencyKeyException.class})
+  public ResponseEntity<?> handleInvalidIdempotencyKey(InvalidIdempotencyKeyException exception) {
+    countError(exception);
+    return ResponseEntity.unprocessableEntity().body(exception.getMessage());
+  }
+
+  @ExceptionHandler(value = {TransferNotFoundException.class})
+  public ResponseEntity<?> handleTransferNotFound(TransferNotFoundException exception) {
+    countError(exception);
+    return ResponseEntity.notFound().build();
+  }
+
+  @ExceptionHandler(value = {TransferQueueFullException.class})
+  public ResponseEntity<?> handleTransferQueueFull(TransferQueueFullException exception) {
+    countError(exception);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body("Too many pending transfers, retry later");
+  }
+
+  @ExceptionHandler(value = {AccountLockTimeoutException.class})
+  public ResponseEntity<?> handleAccountLockTimeout(AccountLockTimeoutException exception) {
+    countError(exception);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body("Account is busy, retry later");
+  }
+
+  @ExceptionHandler(value = {PasswordHashingBusyException.class})
+  public ResponseEntity<?> handlePasswordHashingBusy(PasswordHashingBusyException exception) {
+    countError(exception);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body("Too many users are being created, retry later");
+  }
+
+  @ExceptionHandler(value = {RequestQueueFullException.class})
+  public ResponseEntity<?> handleRequestQueueFull(RequestQueueFullException exception) {
+    countError(exception);
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body("Too many requests in progress, retry later");
+  }
+
   @ExceptionHandler(value = {WrongCurrencyException.class})
-  public ResponseEntity<?> handleWrongCurrency() {
+  public ResponseEntity<?> handleWrongCurrency(WrongCurrencyException exception) {
+    countError(exception);
     return ResponseEntity.badRequest().body("Account currencies should be same");
   }
+
+  private void countError(RuntimeException exception) {
+    meterRegistry
+        .counter("banking.errors", "exception", exception.getClass().getSimpleName())
+        .increment();
+  }
 }
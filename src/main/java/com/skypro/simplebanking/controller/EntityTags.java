@@ -0,0 +1,47 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import java.nio.charset.StandardCharsets;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Strong ETags computed from the fields of a response DTO rather than from its serialized body, so
+ * a conditional GET served from {@code AccountReadCache} is answered without touching the database
+ * or Jackson. The account version column cannot be used: deposits into striped accounts and the
+ * in-memory ledger engine change balances without bumping it.
+ */
+final class EntityTags {
+  private EntityTags() {}
+
+  static String of(AccountDTO account) {
+    StringBuilder content = new StringBuilder();
+    append(content, account);
+    return digest(content);
+  }
+
+  static String of(UserDTO user) {
+    StringBuilder content =
+        new StringBuilder().append(user.getId()).append(':').append(user.getUsername());
+    for (AccountDTO account : user.getAccounts()) {
+      content.append('|');
+      append(content, account);
+    }
+    return digest(content);
+  }
+
+  private static void append(StringBuilder content, AccountDTO account) {
+    content
+        .append(account.getId())
+        .append(':')
+        .append(account.getAmount())
+        .append(':')
+        .append(account.getCurrency());
+  }
+
+  private static String digest(StringBuilder content) {
+    return '"'
+        + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8))
+        + '"';
+  }
+}
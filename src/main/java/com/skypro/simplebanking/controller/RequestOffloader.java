@@ -0,0 +1,71 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.exception.RequestQueueFullException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the handlers of the {@code async} profile on a fixed pool of {@code
+ * app.async-endpoints.threads}, sized like the connection pool since every task holds a
+ * transaction. The Tomcat thread that accepted the request goes back to the connector right away,
+ * so the number of open requests is bounded by the connector and the queue, not by request
+ * threads. Requests beyond {@code app.async-endpoints.queue-capacity} waiting ones are rejected.
+ *
+ * <p>This is not a reactive stack. Each task still blocks one pool thread for its whole JPA
+ * transaction, so throughput is bounded by the pool exactly as in the default mode; only waiting
+ * requests stop costing a thread. WebFlux with R2DBC is out of scope: it cannot share the servlet
+ * application, and the ledger engine, journal, slots and idempotency records are written through
+ * blocking JPA transactions that would all have to be rewritten.
+ */
+@Component
+@Profile("async")
+class RequestOffloader {
+  private final ThreadPoolExecutor executor;
+
+  RequestOffloader(
+      MeterRegistry meterRegistry,
+      @Value("${app.async-endpoints.threads}") int threads,
+      @Value("${app.async-endpoints.queue-capacity}") int queueCapacity) {
+    BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            queue,
+            task -> {
+              Thread thread = new Thread(task, "request-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    meterRegistry.gaugeCollectionSize("banking.async-endpoints.queue-depth", Tags.empty(), queue);
+  }
+
+  <T> CompletableFuture<T> supply(Supplier<T> action) {
+    try {
+      return CompletableFuture.supplyAsync(action, executor);
+    } catch (RejectedExecutionException e) {
+      throw new RequestQueueFullException();
+    }
+  }
+
+  @PreDestroy
+  void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -2,26 +2,116 @@ package com.skypro.simplebanking.controller;
 
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.dto.TransferStatusDTO;
+import com.skypro.simplebanking.service.AccountLockManager;
+import com.skypro.simplebanking.service.AsyncTransferService;
+import com.skypro.simplebanking.service.ConcurrencyRetry;
+import com.skypro.simplebanking.service.IdempotencyService;
 import com.skypro.simplebanking.service.TransferService;
+import java.net.URI;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 @RestController
 @RequestMapping("/transfer")
+@Profile("!async")
 public class TransferController {
   private final TransferService transferService;
+  private final ConcurrencyRetry concurrencyRetry;
+  private final IdempotencyService idempotencyService;
+  private final AsyncTransferService asyncTransferService;
+  private final AccountLockManager accountLockManager;
 
-  public TransferController(TransferService transferService) {
+  public TransferController(
+      TransferService transferService,
+      ConcurrencyRetry concurrencyRetry,
+      IdempotencyService idempotencyService,
+      AsyncTransferService asyncTransferService,
+      AccountLockManager accountLockManager) {
     this.transferService = transferService;
+    this.concurrencyRetry = concurrencyRetry;
+    this.idempotencyService = idempotencyService;
+    this.asyncTransferService = asyncTransferService;
+    this.accountLockManager = accountLockManager;
   }
 
   @PostMapping
   public void transfer(
-      Authentication authentication, @RequestBody TransferRequest transferRequest) {
+      Authentication authentication,
+      @RequestBody TransferRequest transferRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    transferService.transfer(bankingUserDetails.getId(), transferRequest);
+    concurrencyRetry.run(
+        "transfer",
+        () ->
+            accountLockManager.withLocks(
+                "transfer",
+                TransferService.accountIds(List.of(transferRequest)),
+                () ->
+                    idempotencyService.execute(
+                        bankingUserDetails.getId(),
+                        idempotencyKey,
+                        "transfer",
+                        transferRequest,
+                        Void.class,
+                        () -> {
+                          transferService.transfer(bankingUserDetails.getId(), transferRequest);
+                          return null;
+                        })));
+  }
+
+  @PostMapping(headers = "Prefer=respond-async")
+  public ResponseEntity<TransferStatusDTO> submitTransfer(
+      Authentication authentication,
+      @RequestBody TransferRequest transferRequest,
+      @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    TransferStatusDTO transferStatus =
+        idempotencyService.execute(
+            bankingUserDetails.getId(),
+            idempotencyKey,
+            "transfer.async",
+            transferRequest,
+            TransferStatusDTO.class,
+            () -> asyncTransferService.submit(bankingUserDetails.getId(), transferRequest));
+    return ResponseEntity.accepted()
+        .location(URI.create("/transfer/" + transferStatus.getId()))
+        .header("Preference-Applied", "respond-async")
+        .body(transferStatus);
+  }
+
+  @GetMapping("/{id}")
+  public TransferStatusDTO getTransfer(Authentication authentication, @PathVariable UUID id) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return asyncTransferService.getStatus(bankingUserDetails.getId(), id);
+  }
+
+  @PostMapping("/batch")
+  public List<TransferResultDTO> transferBatch(
+      Authentication authentication,
+      @RequestBody List<TransferRequest> transferRequests,
+      @RequestParam(defaultValue = "true") boolean atomic) {
+    BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
+    return concurrencyRetry.execute(
+        "transfer.batch",
+        () ->
+            accountLockManager.withLocks(
+                "transfer.batch",
+                TransferService.accountIds(transferRequests),
+                () ->
+                    transferService.transferBatch(
+                        bankingUserDetails.getId(), transferRequests, atomic)));
   }
 }
@@ -0,0 +1,28 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.service.UserImportService;
+import java.io.InputStream;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/admin/user")
+public class UserAdminController {
+  private static final String JSON_LINES = "application/x-ndjson";
+
+  private final UserImportService userImportService;
+
+  public UserAdminController(UserImportService userImportService) {
+    this.userImportService = userImportService;
+  }
+
+  @PostMapping(value = "/import", consumes = JSON_LINES, produces = JSON_LINES)
+  public StreamingResponseBody importJsonLines(InputStream body) {
+    return out -> userImportService.importUsers(body, UserImportService.Format.JSON_LINES, out);
+  }
+
+  @PostMapping(value = "/import", consumes = "text/csv", produces = JSON_LINES)
+  public StreamingResponseBody importCsv(InputStream body) {
+    return out -> userImportService.importUsers(body, UserImportService.Format.CSV, out);
+  }
+}
@@ -3,22 +3,34 @@ package com.skypro.simplebanking.controller;
 import com.skypro.simplebanking.dto.BankingUserDetails;
 import com.skypro.simplebanking.dto.CreateUserRequest;
 import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.ListUserPage;
 import com.skypro.simplebanking.dto.UserDTO;
 import javax.validation.Valid;
 
 import com.skypro.simplebanking.service.UserService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
 @RestController
 @RequestMapping("/user")
 public class UserController {
+  private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
   private final UserService userService;
+  private final int listDefaultPageSize;
 
-  public UserController(UserService userService) {
+  public UserController(
+      UserService userService,
+      @Value("${app.user-list.default-page-size}") int listDefaultPageSize) {
     this.userService = userService;
+    this.listDefaultPageSize = listDefaultPageSize;
   }
 
   @PostMapping
@@ -26,12 +38,27 @@ public class UserController {
     return userService.createUser(userRequest.getUsername(), userRequest.getPassword());
   }
   @GetMapping("/list")
-  public List<ListUserDTO> getAllUsers(){
-    return userService.listUsers();
+  public ResponseEntity<List<ListUserDTO>> getAllUsers(
+      @RequestParam(defaultValue = "0") long after,
+      @RequestParam(required = false) Integer limit){
+    ListUserPage page = userService.listUsers(after, limit == null ? listDefaultPageSize : limit);
+    ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+    if (page.getNextCursor() != null) {
+      response.header(NEXT_CURSOR_HEADER, String.valueOf(page.getNextCursor()));
+    }
+    return response.body(page.getUsers());
+  }
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+  public StreamingResponseBody exportUsers(){
+    return userService::exportUsers;
   }
   @GetMapping("/me")
-  public UserDTO getMyProfile(Authentication authentication){
+  public UserDTO getMyProfile(Authentication authentication, WebRequest request){
     BankingUserDetails bankingUserDetails = (BankingUserDetails) authentication.getPrincipal();
-    return userService.getUser(bankingUserDetails.getId());
+    UserDTO user = userService.getUser(bankingUserDetails.getId());
+    if (request.checkNotModified(EntityTags.of(user))) {
+      return null;
+    }
+    return user;
   }
 }
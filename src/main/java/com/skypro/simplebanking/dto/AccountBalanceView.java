@@ -0,0 +1,10 @@
+package com.skypro.simplebanking.dto;
+
+/** Row returned by the {@code UPDATE ... RETURNING} balance queries of the account repository. */
+public interface AccountBalanceView {
+  long getId();
+
+  long getAmount();
+
+  int getAccountCurrency();
+}
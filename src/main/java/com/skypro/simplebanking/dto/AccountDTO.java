@@ -1,5 +1,6 @@
 package com.skypro.simplebanking.dto;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
 
@@ -8,6 +9,7 @@ public class AccountDTO {
   private final long amount;
   private final AccountCurrency currency;
 
+  @JsonCreator
   public AccountDTO(long id, long amount, AccountCurrency currency) {
     this.id = id;
     this.amount = amount;
@@ -29,4 +31,11 @@ public class AccountDTO {
   public static AccountDTO from(Account account) {
     return new AccountDTO(account.getId(), account.getAmount(), account.getAccountCurrency());
   }
+
+  public static AccountDTO from(AccountBalanceView balance) {
+    return new AccountDTO(
+        balance.getId(),
+        balance.getAmount(),
+        AccountCurrency.values()[balance.getAccountCurrency()]);
+  }
 }
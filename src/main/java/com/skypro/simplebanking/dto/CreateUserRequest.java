@@ -4,7 +4,11 @@ import javax.validation.constraints.NotBlank;
 import org.hibernate.validator.constraints.Length;
 
 public class CreateUserRequest {
+  @NotBlank(groups = ImportRow.class)
+  @Length(max = 255, groups = ImportRow.class)
   private String username;
+
+  @NotBlank(groups = ImportRow.class)
   private String password;
 
   public String getUsername() {
@@ -22,4 +26,10 @@ public class CreateUserRequest {
   public void setPassword(String password) {
     this.password = password;
   }
+
+  /**
+   * Validation group of the rows of {@code POST /admin/user/import}. {@code POST /user} validates
+   * the default group only, so these constraints do not change its behavior.
+   */
+  public interface ImportRow {}
 }
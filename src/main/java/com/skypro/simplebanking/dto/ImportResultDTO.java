@@ -0,0 +1,44 @@
+package com.skypro.simplebanking.dto;
+
+public class ImportResultDTO {
+  private final long line;
+  private final Status status;
+  private final Long userId;
+  private final String error;
+
+  public ImportResultDTO(long line, Status status, Long userId, String error) {
+    this.line = line;
+    this.status = status;
+    this.userId = userId;
+    this.error = error;
+  }
+
+  public long getLine() {
+    return line;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public Long getUserId() {
+    return userId;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public static ImportResultDTO created(long line, long userId) {
+    return new ImportResultDTO(line, Status.CREATED, userId, null);
+  }
+
+  public static ImportResultDTO failed(long line, String error) {
+    return new ImportResultDTO(line, Status.FAILED, null, error);
+  }
+
+  public enum Status {
+    CREATED,
+    FAILED
+  }
+}
@@ -0,0 +1,10 @@
+package com.skypro.simplebanking.dto;
+
+/** Balance of an account next to the sum of its journal entries, as read by one query. */
+public interface JournalBalanceView {
+  long getAccountId();
+
+  long getBalance();
+
+  long getJournalBalance();
+}
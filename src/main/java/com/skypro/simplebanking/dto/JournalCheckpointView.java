@@ -0,0 +1,11 @@
+package com.skypro.simplebanking.dto;
+
+/**
+ * {@link JournalBalanceView} computed from a stored journal checkpoint, with the part of the sum
+ * that is old enough to move into the next checkpoint.
+ */
+public interface JournalCheckpointView extends JournalBalanceView {
+  long getSettledJournalBalance();
+
+  long getSettledEntries();
+}
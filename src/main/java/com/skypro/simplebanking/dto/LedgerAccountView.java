@@ -0,0 +1,14 @@
+package com.skypro.simplebanking.dto;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+
+/** Account as the ledger engine loads it: owner, currency and balance including its slots. */
+public interface LedgerAccountView {
+  long getId();
+
+  long getUserId();
+
+  AccountCurrency getAccountCurrency();
+
+  long getBalance();
+}
@@ -0,0 +1,22 @@
+package com.skypro.simplebanking.dto;
+
+import java.util.List;
+
+/** One page of {@code /user/list}; {@code nextCursor} is {@code null} on the last page. */
+public class ListUserPage {
+  private final List<ListUserDTO> users;
+  private final Long nextCursor;
+
+  public ListUserPage(List<ListUserDTO> users, Long nextCursor) {
+    this.users = users;
+    this.nextCursor = nextCursor;
+  }
+
+  public List<ListUserDTO> getUsers() {
+    return users;
+  }
+
+  public Long getNextCursor() {
+    return nextCursor;
+  }
+}
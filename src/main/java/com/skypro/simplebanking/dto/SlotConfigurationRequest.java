@@ -0,0 +1,18 @@
+package com.skypro.simplebanking.dto;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+public class SlotConfigurationRequest {
+  @Min(0)
+  @Max(256)
+  private int slots;
+
+  public int getSlots() {
+    return slots;
+  }
+
+  public void setSlots(int slots) {
+    this.slots = slots;
+  }
+}
@@ -0,0 +1,21 @@
+package com.skypro.simplebanking.dto;
+
+import java.time.Instant;
+
+public class TokenDTO {
+  private final String token;
+  private final Instant expiresAt;
+
+  public TokenDTO(String token, Instant expiresAt) {
+    this.token = token;
+    this.expiresAt = expiresAt;
+  }
+
+  public String getToken() {
+    return token;
+  }
+
+  public Instant getExpiresAt() {
+    return expiresAt;
+  }
+}
@@ -0,0 +1,39 @@
+package com.skypro.simplebanking.dto;
+
+public class TransferResultDTO {
+  private final int index;
+  private final Status status;
+  private final String error;
+
+  public TransferResultDTO(int index, Status status, String error) {
+    this.index = index;
+    this.status = status;
+    this.error = error;
+  }
+
+  public int getIndex() {
+    return index;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public static TransferResultDTO completed(int index) {
+    return new TransferResultDTO(index, Status.COMPLETED, null);
+  }
+
+  public static TransferResultDTO failed(int index, String error) {
+    return new TransferResultDTO(index, Status.FAILED, error);
+  }
+
+  public enum Status {
+    COMPLETED,
+    FAILED,
+    ROLLED_BACK
+  }
+}
@@ -0,0 +1,35 @@
+package com.skypro.simplebanking.dto;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import java.util.UUID;
+
+public class TransferStatusDTO {
+  private final UUID id;
+  private final Status status;
+  private final String error;
+
+  @JsonCreator
+  public TransferStatusDTO(UUID id, Status status, String error) {
+    this.id = id;
+    this.status = status;
+    this.error = error;
+  }
+
+  public UUID getId() {
+    return id;
+  }
+
+  public Status getStatus() {
+    return status;
+  }
+
+  public String getError() {
+    return error;
+  }
+
+  public enum Status {
+    PENDING,
+    COMPLETED,
+    FAILED
+  }
+}
@@ -0,0 +1,12 @@
+package com.skypro.simplebanking.dto;
+
+import com.skypro.simplebanking.entity.AccountCurrency;
+
+/** Account id and currency together with the id of the owning user. */
+public interface UserAccountView {
+  long getUserId();
+
+  long getAccountId();
+
+  AccountCurrency getAccountCurrency();
+}
@@ -0,0 +1,8 @@
+package com.skypro.simplebanking.dto;
+
+/** Id and username of a user, read without loading the entity or its accounts. */
+public interface UserSummaryView {
+  long getId();
+
+  String getUsername();
+}
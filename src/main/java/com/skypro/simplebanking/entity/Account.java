@@ -13,6 +13,13 @@ public class Account {
   private AccountCurrency accountCurrency;
   private Long amount;
 
+  @Version
+  @Column(columnDefinition = "bigint default 0 not null")
+  private Long version;
+
+  @Column(columnDefinition = "integer default 0 not null")
+  private int slotCount;
+
   @ManyToOne(optional = false)
   @JoinColumn(nullable = false, updatable = false, name = "user_id")
   private User user;
@@ -41,6 +48,22 @@ public class Account {
     this.amount = amount;
   }
 
+  public Long getVersion() {
+    return version;
+  }
+
+  public int getSlotCount() {
+    return slotCount;
+  }
+
+  public void setSlotCount(int slotCount) {
+    this.slotCount = slotCount;
+  }
+
+  public boolean isStriped() {
+    return slotCount > 0;
+  }
+
   public User getUser() {
     return user;
   }
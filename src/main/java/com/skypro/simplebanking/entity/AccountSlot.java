@@ -0,0 +1,49 @@
+package com.skypro.simplebanking.entity;
+
+import javax.persistence.*;
+
+@Entity
+@Table(
+    name = "account_slots",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"account_id", "slot"}))
+public class AccountSlot {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account-slot-sequence")
+  @SequenceGenerator(name = "account-slot-sequence", sequenceName = "account_slot_sequence")
+  private Long id;
+
+  @ManyToOne(fetch = FetchType.LAZY, optional = false)
+  @JoinColumn(nullable = false, updatable = false, name = "account_id")
+  private Account account;
+
+  private int slot;
+  private long amount;
+
+  public Long getId() {
+    return id;
+  }
+
+  public Account getAccount() {
+    return account;
+  }
+
+  public void setAccount(Account account) {
+    this.account = account;
+  }
+
+  public int getSlot() {
+    return slot;
+  }
+
+  public void setSlot(int slot) {
+    this.slot = slot;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public void setAmount(long amount) {
+    this.amount = amount;
+  }
+}
@@ -0,0 +1,86 @@
+package com.skypro.simplebanking.entity;
+
+import java.time.Instant;
+import javax.persistence.*;
+
+@Entity
+@Table(
+    name = "idempotency_keys",
+    uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "idempotency_key"}),
+    indexes = @Index(name = "idempotency_keys_created_idx", columnList = "createdAt"))
+public class IdempotencyRecord {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "idempotency-sequence")
+  @SequenceGenerator(name = "idempotency-sequence", sequenceName = "idempotency_sequence")
+  private Long id;
+
+  @Column(name = "user_id", nullable = false)
+  private long userId;
+
+  @Column(name = "idempotency_key", nullable = false)
+  private String idempotencyKey;
+
+  @Column(nullable = false)
+  private String operation;
+
+  @Column(name = "request_hash", length = 64)
+  private String requestHash;
+
+  @Column(columnDefinition = "text")
+  private String response;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public void setUserId(long userId) {
+    this.userId = userId;
+  }
+
+  public String getIdempotencyKey() {
+    return idempotencyKey;
+  }
+
+  public void setIdempotencyKey(String idempotencyKey) {
+    this.idempotencyKey = idempotencyKey;
+  }
+
+  public String getOperation() {
+    return operation;
+  }
+
+  public void setOperation(String operation) {
+    this.operation = operation;
+  }
+
+  public String getRequestHash() {
+    return requestHash;
+  }
+
+  public void setRequestHash(String requestHash) {
+    this.requestHash = requestHash;
+  }
+
+  public String getResponse() {
+    return response;
+  }
+
+  public void setResponse(String response) {
+    this.response = response;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+}
@@ -0,0 +1,46 @@
+package com.skypro.simplebanking.entity;
+
+import java.time.Instant;
+import javax.persistence.*;
+
+/**
+ * Sum of the journal entries of one account created up to {@code verifiedUntil}. Lets {@link
+ * com.skypro.simplebanking.service.JournalCheckpointer} add only newer entries on each run.
+ */
+@Entity
+@Table(name = "journal_checkpoints")
+public class JournalCheckpoint {
+  @Id
+  @Column(name = "account_id")
+  private Long accountId;
+
+  @Column(nullable = false)
+  private long journalSum;
+
+  @Column(nullable = false)
+  private Instant verifiedUntil;
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(Long accountId) {
+    this.accountId = accountId;
+  }
+
+  public long getJournalSum() {
+    return journalSum;
+  }
+
+  public void setJournalSum(long journalSum) {
+    this.journalSum = journalSum;
+  }
+
+  public Instant getVerifiedUntil() {
+    return verifiedUntil;
+  }
+
+  public void setVerifiedUntil(Instant verifiedUntil) {
+    this.verifiedUntil = verifiedUntil;
+  }
+}
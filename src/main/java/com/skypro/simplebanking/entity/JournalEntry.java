@@ -0,0 +1,107 @@
+package com.skypro.simplebanking.entity;
+
+import java.time.Instant;
+import java.util.UUID;
+import javax.persistence.*;
+
+/**
+ * One side of a balance movement. Every operation writes a debit and a credit row sharing an
+ * {@code operationId}; a {@code null} account stands for money entering or leaving the bank. Rows
+ * are never updated, so the table has no foreign keys and can be partitioned by {@code createdAt}.
+ */
+@Entity
+@Table(
+    name = "journal_entries",
+    indexes = @Index(name = "journal_entries_account_idx", columnList = "account_id, createdAt"))
+public class JournalEntry {
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "journal-sequence")
+  @SequenceGenerator(
+      name = "journal-sequence",
+      sequenceName = "journal_sequence",
+      allocationSize = 50)
+  private Long id;
+
+  @Column(nullable = false)
+  private UUID operationId;
+
+  @Column(nullable = false)
+  private Type type;
+
+  @Column(name = "account_id")
+  private Long accountId;
+
+  @Column(nullable = false)
+  private Direction direction;
+
+  @Column(nullable = false)
+  private long amount;
+
+  @Column(nullable = false)
+  private Instant createdAt;
+
+  public Long getId() {
+    return id;
+  }
+
+  public UUID getOperationId() {
+    return operationId;
+  }
+
+  public void setOperationId(UUID operationId) {
+    this.operationId = operationId;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public void setType(Type type) {
+    this.type = type;
+  }
+
+  public Long getAccountId() {
+    return accountId;
+  }
+
+  public void setAccountId(Long accountId) {
+    this.accountId = accountId;
+  }
+
+  public Direction getDirection() {
+    return direction;
+  }
+
+  public void setDirection(Direction direction) {
+    this.direction = direction;
+  }
+
+  public long getAmount() {
+    return amount;
+  }
+
+  public void setAmount(long amount) {
+    this.amount = amount;
+  }
+
+  public Instant getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(Instant createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public enum Type {
+    OPENING,
+    DEPOSIT,
+    WITHDRAWAL,
+    TRANSFER
+  }
+
+  /** A debit lowers the balance of its account, a credit raises it. */
+  public enum Direction {
+    DEBIT,
+    CREDIT
+  }
+}
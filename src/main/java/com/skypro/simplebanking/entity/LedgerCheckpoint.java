@@ -0,0 +1,29 @@
+package com.skypro.simplebanking.entity;
+
+import javax.persistence.*;
+
+/** Last write-ahead log sequence number whose effects are stored in the accounts table. */
+@Entity
+@Table(name = "ledger_checkpoint")
+public class LedgerCheckpoint {
+  public static final int SINGLETON_ID = 1;
+
+  @Id private Integer id;
+  private long walSequence;
+
+  public Integer getId() {
+    return id;
+  }
+
+  public void setId(Integer id) {
+    this.id = id;
+  }
+
+  public long getWalSequence() {
+    return walSequence;
+  }
+
+  public void setWalSequence(long walSequence) {
+    this.walSequence = walSequence;
+  }
+}
@@ -0,0 +1,24 @@
+package com.skypro.simplebanking.entity;
+
+import javax.persistence.*;
+
+/**
+ * Write-ahead log sequence number of a pending ledger entry whose database transaction committed.
+ * Inserted in that transaction, it decides the entry on recovery when its commit marker is
+ * missing from the log.
+ */
+@Entity
+@Table(name = "ledger_commits")
+public class LedgerCommit {
+  @Id
+  @Column(name = "wal_sequence")
+  private Long walSequence;
+
+  public Long getWalSequence() {
+    return walSequence;
+  }
+
+  public void setWalSequence(Long walSequence) {
+    this.walSequence = walSequence;
+  }
+}
@@ -1,12 +1,15 @@
 package com.skypro.simplebanking.entity;
 
 import javax.persistence.*;
+import org.hibernate.annotations.BatchSize;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 @Entity
-@Table(name = "users")
+@Table(
+    name = "users",
+    uniqueConstraints = @UniqueConstraint(name = "users_username_key", columnNames = "username"))
 public class User {
   @Id
   @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user-generator")
@@ -15,6 +18,7 @@ public class User {
   private String username;
   private String password;
   @OneToMany(cascade = CascadeType.ALL, mappedBy = "user")
+  @BatchSize(size = 100)
   private Collection<Account> accounts;
 
   public Long getId() {
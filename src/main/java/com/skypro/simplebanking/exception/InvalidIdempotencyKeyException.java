@@ -0,0 +1,7 @@
+package com.skypro.simplebanking.exception;
+
+public class InvalidIdempotencyKeyException extends RuntimeException {
+  public InvalidIdempotencyKeyException(String message) {
+    super(message);
+  }
+}
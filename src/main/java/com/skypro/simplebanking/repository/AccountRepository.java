@@ -1,11 +1,73 @@
 package com.skypro.simplebanking.repository;
 
+import com.skypro.simplebanking.dto.AccountBalanceView;
+import com.skypro.simplebanking.dto.LedgerAccountView;
+import com.skypro.simplebanking.dto.UserAccountView;
 import com.skypro.simplebanking.entity.Account;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, Long> {
+  String LEDGER_ACCOUNT_QUERY =
+      "SELECT a.id AS id, a.user.id AS userId, a.accountCurrency AS accountCurrency,"
+          + " a.amount + COALESCE((SELECT SUM(s.amount) FROM AccountSlot s WHERE s.account = a), 0)"
+          + " AS balance FROM Account a";
+
   Optional<Account> getAccountByUser_IdAndId(Long userId, Long accountId);
+
+  @Query(
+      "SELECT a.user.id AS userId, a.id AS accountId, a.accountCurrency AS accountCurrency"
+          + " FROM Account a WHERE a.user.id IN :userIds ORDER BY a.id")
+  List<UserAccountView> findAllByUserIds(@Param("userIds") Collection<Long> userIds);
+
+  /**
+   * Loads and row-locks the given accounts in a single statement. Rows are locked in ascending id
+   * order, so two transactions locking overlapping sets can never wait on each other in a cycle.
+   */
+  @Query(
+      value = "SELECT * FROM accounts WHERE id IN (:ids) ORDER BY id FOR UPDATE",
+      nativeQuery = true)
+  List<Account> findAllByIdForUpdate(@Param("ids") Collection<Long> ids);
+
+  @Query(
+      value =
+          "UPDATE accounts SET amount = amount + :amount, version = version + 1"
+              + " WHERE id = :accountId AND user_id = :userId AND slot_count = 0"
+              + " RETURNING id, amount, account_currency AS \"accountCurrency\"",
+      nativeQuery = true)
+  Optional<AccountBalanceView> deposit(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @Query(
+      value =
+          "UPDATE accounts SET amount = amount - :amount, version = version + 1"
+              + " WHERE id = :accountId AND user_id = :userId AND slot_count = 0"
+              + " AND amount >= :amount"
+              + " RETURNING id, amount, account_currency AS \"accountCurrency\"",
+      nativeQuery = true)
+  Optional<AccountBalanceView> withdraw(
+      @Param("userId") long userId,
+      @Param("accountId") long accountId,
+      @Param("amount") long amount);
+
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+    @QueryHint(name = "org.hibernate.readOnly", value = "true")
+  })
+  @Query(LEDGER_ACCOUNT_QUERY)
+  Stream<LedgerAccountView> streamLedgerAccounts();
+
+  @Query(LEDGER_ACCOUNT_QUERY + " WHERE a.id = :accountId")
+  Optional<LedgerAccountView> findLedgerAccount(@Param("accountId") long accountId);
 }
@@ -0,0 +1,29 @@
+package com.skypro.simplebanking.repository;
+
+import com.skypro.simplebanking.entity.AccountSlot;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface AccountSlotRepository extends JpaRepository<AccountSlot, Long> {
+  @Query("SELECT COALESCE(SUM(s.amount), 0) FROM AccountSlot s WHERE s.account.id = :accountId")
+  long sumAmountByAccountId(@Param("accountId") long accountId);
+
+  @Query(
+      value = "SELECT * FROM account_slots WHERE account_id = :accountId ORDER BY slot FOR UPDATE",
+      nativeQuery = true)
+  List<AccountSlot> findAllByAccountIdForUpdate(@Param("accountId") long accountId);
+
+  @Modifying
+  @Query(
+      value =
+          "UPDATE account_slots SET amount = amount + :amount"
+              + " WHERE account_id = :accountId AND slot = :slot",
+      nativeQuery = true)
+  int deposit(
+      @Param("accountId") long accountId, @Param("slot") int slot, @Param("amount") long amount);
+}
@@ -0,0 +1,24 @@
+package com.skypro.simplebanking.repository;
+
+import com.skypro.simplebanking.entity.IdempotencyRecord;
+import java.time.Instant;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, Long> {
+  Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(long userId, String idempotencyKey);
+
+  /** Deletes up to {@code limit} records created before {@code cutoff}. */
+  @Modifying
+  @Query(
+      value =
+          "DELETE FROM idempotency_keys WHERE id IN (SELECT id FROM idempotency_keys"
+              + " WHERE created_at < :cutoff LIMIT :limit)",
+      nativeQuery = true)
+  int deleteCreatedBefore(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
+}
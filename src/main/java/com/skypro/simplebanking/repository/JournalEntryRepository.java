@@ -0,0 +1,92 @@
+package com.skypro.simplebanking.repository;
+
+import com.skypro.simplebanking.dto.JournalBalanceView;
+import com.skypro.simplebanking.dto.JournalCheckpointView;
+import com.skypro.simplebanking.entity.JournalEntry;
+import java.time.Instant;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JournalEntryRepository extends JpaRepository<JournalEntry, Long> {
+  /** {@link JournalEntry#getDirection()} has no {@code @Enumerated}, so it is stored by ordinal. */
+  int CREDIT = JournalEntry.Direction.CREDIT.ordinal();
+
+  String SIGNED_AMOUNT = "CASE WHEN j.direction = :credit THEN j.amount ELSE -j.amount END";
+
+  String BALANCE =
+      "a.amount + COALESCE("
+          + "(SELECT SUM(s.amount) FROM account_slots s WHERE s.account_id = a.id), 0)"
+          + " AS balance";
+
+  String BALANCES_AFTER =
+      "SELECT a.id AS \"accountId\", "
+          + BALANCE
+          + ", COALESCE((SELECT SUM("
+          + SIGNED_AMOUNT
+          + ") FROM journal_entries j WHERE j.account_id = a.id), 0) AS \"journalBalance\""
+          + " FROM accounts a WHERE a.id > :after";
+
+  /**
+   * Adds the entries created after an account's checkpoint to its stored sum. {@code
+   * settledJournalBalance} and {@code settledEntries} only count entries up to {@code :cutoff}.
+   */
+  String CHECKPOINTED_BALANCES_AFTER =
+      "SELECT a.id AS \"accountId\", "
+          + BALANCE
+          + ", COALESCE(c.journal_sum, 0) + COALESCE(r.recent, 0) AS \"journalBalance\","
+          + " COALESCE(c.journal_sum, 0) + COALESCE(r.settled, 0) AS \"settledJournalBalance\","
+          + " r.settled_entries AS \"settledEntries\""
+          + " FROM accounts a LEFT JOIN journal_checkpoints c ON c.account_id = a.id"
+          + " CROSS JOIN LATERAL (SELECT SUM("
+          + SIGNED_AMOUNT
+          + ") AS recent, SUM("
+          + SIGNED_AMOUNT
+          + ") FILTER (WHERE j.created_at <= :cutoff) AS settled,"
+          + " COUNT(*) FILTER (WHERE j.created_at <= :cutoff) AS settled_entries"
+          + " FROM journal_entries j WHERE j.account_id = a.id"
+          + " AND j.created_at > COALESCE(c.verified_until, '-infinity')) r"
+          + " WHERE a.id > :after";
+
+  /** Balances and journal sums of the next {@code limit} accounts, read from one snapshot. */
+  default List<JournalBalanceView> findBalancesAfter(long after, int limit) {
+    return findBalancesAfter(after, CREDIT, limit);
+  }
+
+  @Query(value = BALANCES_AFTER + " ORDER BY a.id LIMIT :limit", nativeQuery = true)
+  List<JournalBalanceView> findBalancesAfter(
+      @Param("after") long after, @Param("credit") int credit, @Param("limit") int limit);
+
+  /**
+   * Same as {@link #findBalancesAfter} but reads only the entries created after each account's
+   * {@link com.skypro.simplebanking.entity.JournalCheckpoint}.
+   */
+  default List<JournalCheckpointView> findCheckpointedBalancesAfter(
+      long after, Instant cutoff, int limit) {
+    return findCheckpointedBalancesAfter(after, cutoff, CREDIT, limit);
+  }
+
+  @Query(value = CHECKPOINTED_BALANCES_AFTER + " ORDER BY a.id LIMIT :limit", nativeQuery = true)
+  List<JournalCheckpointView> findCheckpointedBalancesAfter(
+      @Param("after") long after,
+      @Param("cutoff") Instant cutoff,
+      @Param("credit") int credit,
+      @Param("limit") int limit);
+
+  /** Same as {@link #findBalancesAfter} restricted to accounts without any journal entry. */
+  default List<JournalBalanceView> findUnjournaledBalancesAfter(long after, int limit) {
+    return findUnjournaledBalancesAfter(after, CREDIT, limit);
+  }
+
+  @Query(
+      value =
+          BALANCES_AFTER
+              + " AND NOT EXISTS (SELECT 1 FROM journal_entries j WHERE j.account_id = a.id)"
+              + " ORDER BY a.id LIMIT :limit",
+      nativeQuery = true)
+  List<JournalBalanceView> findUnjournaledBalancesAfter(
+      @Param("after") long after, @Param("credit") int credit, @Param("limit") int limit);
+}
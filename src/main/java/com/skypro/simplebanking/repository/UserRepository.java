@@ -1,11 +1,50 @@
 package com.skypro.simplebanking.repository;
 
+import com.skypro.simplebanking.dto.UserSummaryView;
 import com.skypro.simplebanking.entity.User;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+import javax.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
   Optional<User> findByUsername(String username);
+
+  boolean existsByUsername(String username);
+
+  List<UserSummaryView> findByIdGreaterThanOrderByIdAsc(long id, Pageable pageable);
+
+  @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+  Set<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+  @EntityGraph(attributePaths = "accounts")
+  Optional<User> findWithAccountsById(long id);
+
+  /**
+   * Streams all users with their accounts through a server-side cursor. Rows arrive ordered by
+   * user id, which lets Hibernate assemble each user's accounts from consecutive rows.
+   */
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+    @QueryHint(name = "org.hibernate.readOnly", value = "true")
+  })
+  @Query("SELECT u FROM User u LEFT JOIN FETCH u.accounts ORDER BY u.id")
+  Stream<User> streamAllWithAccounts();
+
+  @QueryHints({
+    @QueryHint(name = "org.hibernate.fetchSize", value = "1000"),
+    @QueryHint(name = "org.hibernate.readOnly", value = "true")
+  })
+  @Query("SELECT u.username FROM User u")
+  Stream<String> streamAllUsernames();
 }
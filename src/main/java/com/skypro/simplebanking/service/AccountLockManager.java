@@ -0,0 +1,126 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.exception.AccountLockTimeoutException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Serializes conflicting balance changes inside the JVM before they open a transaction, so that
+ * contending requests wait here instead of on Postgres row locks while holding a pooled
+ * connection. Accounts are hashed onto a fixed array of locks and the locks of an operation are
+ * always taken in ascending stripe order, which keeps two operations from deadlocking even when
+ * their accounts share stripes. Row locks in the database still guard against other nodes.
+ */
+@Component
+public class AccountLockManager {
+  private final ReentrantLock[] stripes;
+  private final long timeoutNanos;
+  private final MeterRegistry meterRegistry;
+
+  public AccountLockManager(
+      @Value("${app.account-locks.stripes}") int stripeCount,
+      @Value("${app.account-locks.timeout}") Duration timeout,
+      MeterRegistry meterRegistry) {
+    this.stripes = new ReentrantLock[stripeCount];
+    for (int i = 0; i < stripeCount; i++) {
+      stripes[i] = new ReentrantLock();
+    }
+    this.timeoutNanos = timeout.toNanos();
+    this.meterRegistry = meterRegistry;
+  }
+
+  public <T> T withLocks(String operation, Collection<Long> accountIds, Supplier<T> action) {
+    TreeSet<Integer> indexes = new TreeSet<>();
+    for (Long accountId : accountIds) {
+      indexes.add(stripeOf(accountId));
+    }
+    Timer waitTimer =
+        Timer.builder("banking.account-locks.wait")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    long start = System.nanoTime();
+    int locked = 0;
+    try {
+      for (int index : indexes) {
+        long remaining = timeoutNanos - (System.nanoTime() - start);
+        if (!stripes[index].tryLock(remaining, TimeUnit.NANOSECONDS)) {
+          throw new AccountLockTimeoutException();
+        }
+        locked++;
+      }
+      waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return action.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new AccountLockTimeoutException();
+    } finally {
+      for (int index : indexes) {
+        if (locked-- == 0) {
+          break;
+        }
+        stripes[index].unlock();
+      }
+    }
+  }
+
+  /**
+   * Locks the accounts of as many of the given items as are free right now and passes the
+   * positions of the locked items to the action. Nothing waits: an item whose stripes are held by
+   * another thread is left out, so a worker applying a large group never queues behind, or keeps
+   * waiting requests behind it for, a single busy account. Skipped items are counted in {@code
+   * banking.account-locks.skipped} and left to the caller.
+   */
+  public <T> T withFreeLocks(
+      String operation, List<? extends Collection<Long>> items, Function<List<Integer>, T> action) {
+    Set<Integer> held = new HashSet<>();
+    List<Integer> locked = new ArrayList<>(items.size());
+    try {
+      for (int i = 0; i < items.size(); i++) {
+        List<Integer> acquired = new ArrayList<>();
+        boolean free = true;
+        for (Long accountId : items.get(i)) {
+          int index = stripeOf(accountId);
+          if (held.contains(index) || acquired.contains(index)) {
+            continue;
+          }
+          if (!stripes[index].tryLock()) {
+            free = false;
+            break;
+          }
+          acquired.add(index);
+        }
+        if (free) {
+          held.addAll(acquired);
+          locked.add(i);
+        } else {
+          acquired.forEach(index -> stripes[index].unlock());
+        }
+      }
+      meterRegistry
+          .counter("banking.account-locks.skipped", "operation", operation)
+          .increment(items.size() - locked.size());
+      return action.apply(locked);
+    } finally {
+      held.forEach(index -> stripes[index].unlock());
+    }
+  }
+
+  private int stripeOf(long accountId) {
+    int hash = Long.hashCode(accountId) * 0x9E3779B9;
+    return Math.floorMod(hash ^ (hash >>> 16), stripes.length);
+  }
+}
@@ -0,0 +1,81 @@
+package com.skypro.simplebanking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Read-through cache of {@code GET /account/{id}} and {@code GET /user/me} responses. Writers evict
+ * the affected entries once their transaction has completed. Caffeine makes an eviction wait for a
+ * load of the same key that is in progress, so a load that read the balance before the commit
+ * cannot leave its stale value behind.
+ *
+ * <p>The eviction runs in {@code afterCompletion} rather than {@code afterCommit}: the ledger
+ * engine publishes credits held by a transaction from its own {@code afterCompletion}, and writers
+ * register the eviction after calling the engine, so it runs only once the new balance is visible.
+ */
+@Component
+public class AccountReadCache {
+  private final Cache<String, AccountDTO> accounts;
+  private final Cache<Long, UserDTO> profiles;
+
+  public AccountReadCache(
+      @Value("${app.read-cache.ttl}") Duration ttl,
+      @Value("${app.read-cache.max-size}") long maxSize,
+      MeterRegistry meterRegistry) {
+    this.accounts =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().build();
+    this.profiles =
+        Caffeine.newBuilder().expireAfterWrite(ttl).maximumSize(maxSize).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, accounts, "accounts");
+    CaffeineCacheMetrics.monitor(meterRegistry, profiles, "profiles");
+  }
+
+  public AccountDTO getAccount(long userId, long accountId, Supplier<AccountDTO> loader) {
+    return accounts.get(key(userId, accountId), ignored -> loader.get());
+  }
+
+  public UserDTO getProfile(long userId, Supplier<UserDTO> loader) {
+    return profiles.get(userId, ignored -> loader.get());
+  }
+
+  /** Evicts an account and its owner's profile after the current transaction completes. */
+  public void evictAfterCompletion(long userId, long accountId) {
+    afterCompletion(
+        () -> {
+          accounts.invalidate(key(userId, accountId));
+          profiles.invalidate(userId);
+        });
+  }
+
+  public void evictProfileAfterCompletion(long userId) {
+    afterCompletion(() -> profiles.invalidate(userId));
+  }
+
+  private static void afterCompletion(Runnable eviction) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      eviction.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            eviction.run();
+          }
+        });
+  }
+
+  private static String key(long userId, long accountId) {
+    return userId + ":" + accountId;
+  }
+}
@@ -1,25 +1,53 @@
 package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.ListAccountDTO;
+import com.skypro.simplebanking.dto.UserAccountView;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.AccountSlot;
 import com.skypro.simplebanking.entity.User;
 import com.skypro.simplebanking.exception.AccountNotFoundException;
 import com.skypro.simplebanking.exception.InsufficientFundsException;
 import com.skypro.simplebanking.exception.InvalidAmountException;
-import com.skypro.simplebanking.exception.WrongCurrencyException;
 import com.skypro.simplebanking.repository.AccountRepository;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.stream.Collectors;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class AccountService {
   private final AccountRepository accountRepository;
+  private final AccountSlotService accountSlotService;
+  private final JournalService journalService;
+  private final AccountReadCache accountReadCache;
+  private final TransactionTemplate readOnlyTransaction;
+  private final Optional<LedgerEngine> ledgerEngine;
 
-  public AccountService(AccountRepository accountRepository) {
+  public AccountService(
+      AccountRepository accountRepository,
+      AccountSlotService accountSlotService,
+      JournalService journalService,
+      AccountReadCache accountReadCache,
+      PlatformTransactionManager transactionManager,
+      Optional<LedgerEngine> ledgerEngine) {
     this.accountRepository = accountRepository;
+    this.accountSlotService = accountSlotService;
+    this.journalService = journalService;
+    this.accountReadCache = accountReadCache;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.ledgerEngine = ledgerEngine;
   }
 
   @Transactional(propagation = Propagation.MANDATORY)
@@ -32,39 +60,88 @@ public class AccountService {
       account.setAmount(1L);
       user.getAccounts().add(account);
       accountRepository.save(account);
+      journalService.recordOpening(account.getId(), account.getAmount());
     }
   }
 
-  @Transactional(readOnly = true)
+  /** Served from {@link AccountReadCache}; a miss loads the account in a read-only transaction. */
   public AccountDTO getAccount(long userId, Long accountId) {
-    return accountRepository
-        .getAccountByUser_IdAndId(userId, accountId)
-        .map(AccountDTO::from)
-        .orElseThrow(AccountNotFoundException::new);
+    return accountReadCache.getAccount(
+        userId,
+        accountId,
+        () ->
+            readOnlyTransaction.execute(
+                status ->
+                    accountRepository
+                        .getAccountByUser_IdAndId(userId, accountId)
+                        .map(this::toDTO)
+                        .orElseThrow(AccountNotFoundException::new)));
   }
 
-  @Transactional
-  public void validateCurrency(long sourceAccount, long destinationAccount) {
-    Account acc1 =
-        accountRepository.findById(sourceAccount).orElseThrow(AccountNotFoundException::new);
-    Account acc2 =
-        accountRepository.findById(destinationAccount).orElseThrow(AccountNotFoundException::new);
-    if (!acc1.getAccountCurrency().equals(acc2.getAccountCurrency())){
-      throw new WrongCurrencyException();
+  /** Accounts of the given users, grouped by user id, read by a single query. */
+  @Transactional(readOnly = true)
+  public Map<Long, List<ListAccountDTO>> listAccounts(Collection<Long> userIds) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    return accountRepository.findAllByUserIds(userIds).stream()
+        .collect(
+            Collectors.groupingBy(
+                UserAccountView::getUserId,
+                Collectors.mapping(
+                    account ->
+                        new ListAccountDTO(account.getAccountId(), account.getAccountCurrency()),
+                    Collectors.toList())));
+  }
+
+  @Transactional(readOnly = true)
+  public AccountDTO toDTO(Account account) {
+    if (ledgerEngine.isPresent()) {
+      OptionalLong balance = ledgerEngine.get().balance(account.getId());
+      if (balance.isPresent()) {
+        return new AccountDTO(
+            account.getId(), balance.getAsLong(), account.getAccountCurrency());
+      }
     }
+    return accountSlotService.toDTO(account);
   }
 
+  /**
+   * Regular accounts are credited by one conditional UPDATE. Striped accounts are excluded from it
+   * and receive the deposit into one of their slots instead. Either way the deposit is journaled in
+   * the same transaction.
+   */
   @Transactional
   public AccountDTO depositToAccount(long userId, Long accountId, long amount) {
     if (amount < 0) {
       throw new InvalidAmountException();
     }
-    Account account =
-        accountRepository
-            .getAccountByUser_IdAndId(userId, accountId)
-            .orElseThrow(AccountNotFoundException::new);
-    account.setAmount(account.getAmount() + amount);
-    return AccountDTO.from(account);
+    AccountDTO account = applyDeposit(userId, accountId, amount);
+    journalService.recordDeposit(accountId, amount);
+    accountReadCache.evictAfterCompletion(userId, accountId);
+    return account;
+  }
+
+  /**
+   * Applies several deposits to one account with a single balance update and returns, for each
+   * deposit in order, the balance right after it. Used by {@link DepositCoalescer}.
+   */
+  @Transactional
+  public List<AccountDTO> depositAllToAccount(long userId, Long accountId, List<Long> amounts) {
+    if (amounts.stream().anyMatch(amount -> amount < 0)) {
+      throw new InvalidAmountException();
+    }
+    long sum = amounts.stream().mapToLong(Long::longValue).sum();
+    AccountDTO total = applyDeposit(userId, accountId, sum);
+    List<AccountDTO> accounts = new ArrayList<>(amounts.size());
+    long balance = total.getAmount() - sum;
+    for (long amount : amounts) {
+      balance += amount;
+      accounts.add(new AccountDTO(total.getId(), balance, total.getCurrency()));
+      journalService.recordDeposit(accountId, amount);
+    }
+    accountReadCache.evictAfterCompletion(userId, accountId);
+    return accounts;
   }
 
   @Transactional
@@ -72,15 +149,55 @@ public class AccountService {
     if (amount < 0) {
       throw new InvalidAmountException();
     }
+    AccountDTO account =
+        ledgerEngine.isPresent()
+            ? ledgerEngine.get().withdraw(id, accountId, amount)
+            : accountRepository
+                .withdraw(id, accountId, amount)
+                .map(AccountDTO::from)
+                .orElseGet(() -> withdrawFromLockedAccount(id, accountId, amount));
+    journalService.recordWithdrawal(accountId, amount);
+    accountReadCache.evictAfterCompletion(id, accountId);
+    return account;
+  }
+
+  private AccountDTO applyDeposit(long userId, Long accountId, long amount) {
+    if (ledgerEngine.isPresent()) {
+      return ledgerEngine.get().deposit(userId, accountId, amount);
+    }
+    return accountRepository
+        .deposit(userId, accountId, amount)
+        .map(AccountDTO::from)
+        .orElseGet(() -> depositToStripedAccount(userId, accountId, amount));
+  }
+
+  private AccountDTO depositToStripedAccount(long userId, Long accountId, long amount) {
     Account account =
         accountRepository
-            .getAccountByUser_IdAndId(id, accountId)
+            .getAccountByUser_IdAndId(userId, accountId)
+            .orElseThrow(AccountNotFoundException::new);
+    if (!account.isStriped()) {
+      throw new ConcurrencyFailureException("Striping of account " + accountId + " changed");
+    }
+    return accountSlotService.deposit(account, amount);
+  }
+
+  private AccountDTO withdrawFromLockedAccount(long id, Long accountId, long amount) {
+    Account account =
+        accountRepository.findAllByIdForUpdate(List.of(accountId)).stream()
+            .filter(locked -> locked.getUser().getId() == id)
+            .findFirst()
             .orElseThrow(AccountNotFoundException::new);
-    if (account.getAmount() < amount) {
+    List<AccountSlot> slots =
+        accountSlotService.lockSlots(List.of(account)).getOrDefault(accountId, List.of());
+    if (AccountSlotService.available(account, slots) < amount) {
       throw new InsufficientFundsException(
           "Cannot withdraw " + amount + " " + account.getAccountCurrency().name());
     }
-    account.setAmount(account.getAmount() - amount);
-    return AccountDTO.from(account);
+    AccountSlotService.withdraw(account, slots, amount);
+    return new AccountDTO(
+        account.getId(),
+        AccountSlotService.available(account, slots),
+        account.getAccountCurrency());
   }
 }
@@ -0,0 +1,134 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountSlot;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.AccountSlotRepository;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Striped ("sharded") balances for hot receiving accounts. A striped account keeps its balance as
+ * {@code accounts.amount} plus the sum of its {@code account_slots} rows; deposits go to a random
+ * slot so they only contend on that slot's row lock. Anything that debits a striped account locks
+ * the account row first and then all of its slots in slot order.
+ */
+@Service
+public class AccountSlotService {
+  private final AccountRepository accountRepository;
+  private final AccountSlotRepository accountSlotRepository;
+
+  public AccountSlotService(
+      AccountRepository accountRepository, AccountSlotRepository accountSlotRepository) {
+    this.accountRepository = accountRepository;
+    this.accountSlotRepository = accountSlotRepository;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public AccountDTO deposit(Account account, long amount) {
+    int slot = ThreadLocalRandom.current().nextInt(account.getSlotCount());
+    if (accountSlotRepository.deposit(account.getId(), slot, amount) == 0) {
+      throw new ConcurrencyFailureException("Slots of account " + account.getId() + " changed");
+    }
+    return toDTO(account);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public Map<Long, List<AccountSlot>> lockSlots(Collection<Account> accounts) {
+    Map<Long, List<AccountSlot>> slots = new HashMap<>();
+    accounts.stream()
+        .filter(Account::isStriped)
+        .sorted(Comparator.comparing(Account::getId))
+        .forEach(
+            account ->
+                slots.put(
+                    account.getId(),
+                    accountSlotRepository.findAllByAccountIdForUpdate(account.getId())));
+    return slots;
+  }
+
+  public static long available(Account account, List<AccountSlot> slots) {
+    return account.getAmount() + slots.stream().mapToLong(AccountSlot::getAmount).sum();
+  }
+
+  /** Debits a locked account, draining the account row first and then its slots in order. */
+  public static void withdraw(Account account, List<AccountSlot> slots, long amount) {
+    long fromAccount = Math.min(Math.max(account.getAmount(), 0), amount);
+    account.setAmount(account.getAmount() - fromAccount);
+    long remaining = amount - fromAccount;
+    for (AccountSlot slot : slots) {
+      if (remaining == 0) {
+        break;
+      }
+      long fromSlot = Math.min(slot.getAmount(), remaining);
+      slot.setAmount(slot.getAmount() - fromSlot);
+      remaining -= fromSlot;
+    }
+  }
+
+  @Transactional(readOnly = true)
+  public AccountDTO toDTO(Account account) {
+    long amount = account.getAmount();
+    if (account.isStriped()) {
+      amount += accountSlotRepository.sumAmountByAccountId(account.getId());
+    }
+    return new AccountDTO(account.getId(), amount, account.getAccountCurrency());
+  }
+
+  /**
+   * Sets the number of slots of an account; zero turns striping off. Existing slot balances are
+   * folded back into the account row before the new, empty slots are created.
+   */
+  @Transactional
+  public AccountDTO configure(long accountId, int slotCount) {
+    Account account = lockAccount(accountId);
+    List<AccountSlot> slots = accountSlotRepository.findAllByAccountIdForUpdate(accountId);
+    account.setAmount(available(account, slots));
+    accountSlotRepository.deleteAllInBatch(slots);
+    List<AccountSlot> newSlots = new ArrayList<>(slotCount);
+    for (int i = 0; i < slotCount; i++) {
+      AccountSlot slot = new AccountSlot();
+      slot.setAccount(account);
+      slot.setSlot(i);
+      newSlots.add(slot);
+    }
+    accountSlotRepository.saveAll(newSlots);
+    account.setSlotCount(slotCount);
+    return new AccountDTO(account.getId(), account.getAmount(), account.getAccountCurrency());
+  }
+
+  /** Spreads the whole balance of a striped account evenly over its slots. */
+  @Transactional
+  public AccountDTO rebalance(long accountId) {
+    Account account = lockAccount(accountId);
+    List<AccountSlot> slots = accountSlotRepository.findAllByAccountIdForUpdate(accountId);
+    long total = available(account, slots);
+    if (slots.isEmpty()) {
+      return new AccountDTO(account.getId(), total, account.getAccountCurrency());
+    }
+    long share = total / slots.size();
+    for (AccountSlot slot : slots) {
+      slot.setAmount(share);
+    }
+    slots.get(0).setAmount(share + total % slots.size());
+    account.setAmount(0L);
+    return new AccountDTO(account.getId(), total, account.getAccountCurrency());
+  }
+
+  private Account lockAccount(long accountId) {
+    return accountRepository.findAllByIdForUpdate(List.of(accountId)).stream()
+        .findFirst()
+        .orElseThrow(AccountNotFoundException::new);
+  }
+}
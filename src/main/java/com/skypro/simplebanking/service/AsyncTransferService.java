@@ -0,0 +1,265 @@
+package com.skypro.simplebanking.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.dto.TransferStatusDTO;
+import com.skypro.simplebanking.exception.AccountLockTimeoutException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.TransferNotFoundException;
+import com.skypro.simplebanking.exception.TransferQueueFullException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+/**
+ * Accepts transfers into a bounded in-process queue and applies them on a small pool of workers.
+ * Each worker drains up to {@code app.transfer.async.max-batch-size} queued transfers and applies
+ * those with free accounts through {@link TransferService#transferGroup} in one transaction, so a
+ * burst of transfers costs one commit per batch instead of one per request. A full queue is reported to the client
+ * instead of blocking the request thread. Statuses are kept in memory, at most {@code
+ * app.transfer.async.status-max-size} of them, for {@code app.transfer.async.status-ttl} after
+ * submission and again after completion; transfers still queued when the process dies are lost.
+ */
+@Service
+public class AsyncTransferService implements SmartLifecycle {
+  private static final Logger log = LoggerFactory.getLogger(AsyncTransferService.class);
+
+  private final TransferService transferService;
+  private final ConcurrencyRetry concurrencyRetry;
+  private final AccountLockManager accountLockManager;
+  private final BlockingQueue<Submission> queue;
+  private final Cache<UUID, Submission> submissions;
+  private final DistributionSummary batchSizes;
+  private final int workerCount;
+  private final int maxBatchSize;
+  private final List<Thread> workers = new ArrayList<>();
+
+  private volatile boolean running;
+
+  public AsyncTransferService(
+      TransferService transferService,
+      ConcurrencyRetry concurrencyRetry,
+      AccountLockManager accountLockManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.transfer.async.queue-capacity}") int queueCapacity,
+      @Value("${app.transfer.async.workers}") int workerCount,
+      @Value("${app.transfer.async.max-batch-size}") int maxBatchSize,
+      @Value("${app.transfer.async.status-ttl}") Duration statusTtl,
+      @Value("${app.transfer.async.status-max-size}") long statusMaxSize) {
+    this.transferService = transferService;
+    this.concurrencyRetry = concurrencyRetry;
+    this.accountLockManager = accountLockManager;
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.submissions =
+        Caffeine.newBuilder().expireAfterWrite(statusTtl).maximumSize(statusMaxSize).build();
+    this.workerCount = workerCount;
+    this.maxBatchSize = maxBatchSize;
+    this.batchSizes = meterRegistry.summary("banking.transfer.async.batch-size");
+    meterRegistry.gaugeCollectionSize("banking.transfer.async.queue-depth", Tags.empty(), queue);
+  }
+
+  public TransferStatusDTO submit(long userId, TransferRequest transferRequest) {
+    if (transferRequest.getAmount() < 0) {
+      throw new InvalidAmountException();
+    }
+    Submission submission = new Submission(UUID.randomUUID(), userId, transferRequest);
+    // Read before queueing: a worker may complete the transfer before this method returns.
+    TransferStatusDTO pending = submission.status;
+    submissions.put(submission.id, submission);
+    if (!running || !queue.offer(submission)) {
+      submissions.invalidate(submission.id);
+      throw new TransferQueueFullException();
+    }
+    return pending;
+  }
+
+  public TransferStatusDTO getStatus(long userId, UUID id) {
+    Submission submission = submissions.getIfPresent(id);
+    if (submission == null || submission.userId != userId) {
+      throw new TransferNotFoundException();
+    }
+    return submission.status;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+    for (int i = 0; i < workerCount; i++) {
+      Thread worker = new Thread(this::runWorker, "transfer-worker-" + i);
+      worker.start();
+      workers.add(worker);
+    }
+  }
+
+  @Override
+  public void stop() {
+    running = false;
+    try {
+      for (Thread worker : workers) {
+        worker.join();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    workers.clear();
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    // Stop after the embedded web server, so that nothing is enqueued while the queue drains.
+    return Integer.MAX_VALUE - 2;
+  }
+
+  private void runWorker() {
+    List<Submission> batch = new ArrayList<>(maxBatchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        Submission first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      queue.drainTo(batch, maxBatchSize - 1);
+      process(batch);
+      batch.clear();
+    }
+  }
+
+  /**
+   * Applies the transfers whose accounts are free in one group transaction, holding the locks of
+   * those accounts only. Transfers that touch an account locked elsewhere are applied afterwards
+   * one by one, waiting for their locks like a synchronous request, so a busy account delays or
+   * fails only its own transfers.
+   */
+  private void process(List<Submission> batch) {
+    batchSizes.record(batch.size());
+    List<Set<Long>> accountIds = new ArrayList<>(batch.size());
+    for (Submission submission : batch) {
+      accountIds.add(TransferService.accountIds(List.of(submission.transferRequest)));
+    }
+    List<Submission> group = new ArrayList<>(batch.size());
+    List<Submission> busy = new ArrayList<>();
+    try {
+      concurrencyRetry.run(
+          "transfer.async",
+          () ->
+              accountLockManager.withFreeLocks(
+                  "transfer.async",
+                  accountIds,
+                  locked -> {
+                    group.clear();
+                    busy.clear();
+                    for (int i = 0, next = 0; i < batch.size(); i++) {
+                      if (next < locked.size() && locked.get(next) == i) {
+                        group.add(batch.get(i));
+                        next++;
+                      } else {
+                        busy.add(batch.get(i));
+                      }
+                    }
+                    apply(group);
+                    return null;
+                  }));
+    } catch (RuntimeException e) {
+      log.error("Failed to apply a batch of {} transfers", group.size(), e);
+      for (Submission submission : group) {
+        fail(submission, "Transfer could not be processed");
+      }
+    }
+    for (Submission submission : busy) {
+      processAlone(submission);
+    }
+  }
+
+  private void processAlone(Submission submission) {
+    try {
+      concurrencyRetry.run(
+          "transfer.async",
+          () ->
+              accountLockManager.withLocks(
+                  "transfer.async",
+                  TransferService.accountIds(List.of(submission.transferRequest)),
+                  () -> {
+                    apply(List.of(submission));
+                    return null;
+                  }));
+    } catch (AccountLockTimeoutException e) {
+      fail(submission, "Accounts are busy, try again later");
+    } catch (RuntimeException e) {
+      log.error("Failed to apply transfer {}", submission.id, e);
+      fail(submission, "Transfer could not be processed");
+    }
+  }
+
+  private void apply(List<Submission> group) {
+    if (group.isEmpty()) {
+      return;
+    }
+    List<Long> userIds = new ArrayList<>(group.size());
+    List<TransferRequest> transferRequests = new ArrayList<>(group.size());
+    for (Submission submission : group) {
+      userIds.add(submission.userId);
+      transferRequests.add(submission.transferRequest);
+    }
+    for (TransferResultDTO result : transferService.transferGroup(userIds, transferRequests)) {
+      Submission submission = group.get(result.getIndex());
+      submission.complete(result);
+      // Writing the entry again restarts its TTL, so the final status outlives a long queue wait.
+      submissions.put(submission.id, submission);
+    }
+  }
+
+  private void fail(Submission submission, String error) {
+    submission.fail(error);
+    submissions.put(submission.id, submission);
+  }
+
+  private static final class Submission {
+    private final UUID id;
+    private final long userId;
+    private final TransferRequest transferRequest;
+    private volatile TransferStatusDTO status;
+
+    private Submission(UUID id, long userId, TransferRequest transferRequest) {
+      this.id = id;
+      this.userId = userId;
+      this.transferRequest = transferRequest;
+      this.status = new TransferStatusDTO(id, TransferStatusDTO.Status.PENDING, null);
+    }
+
+    private void complete(TransferResultDTO result) {
+      status =
+          result.getStatus() == TransferResultDTO.Status.COMPLETED
+              ? new TransferStatusDTO(id, TransferStatusDTO.Status.COMPLETED, null)
+              : new TransferStatusDTO(id, TransferStatusDTO.Status.FAILED, result.getError());
+    }
+
+    private void fail(String error) {
+      status = new TransferStatusDTO(id, TransferStatusDTO.Status.FAILED, error);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.skypro.simplebanking.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-runs a transactional operation that lost an optimistic (or pessimistic) locking race. Each
+ * attempt must open its own transaction, so callers invoke this from outside the service layer.
+ * Backoff is exponential with full jitter, capped by {@code app.retry.max-backoff}.
+ */
+@Component
+public class ConcurrencyRetry {
+  private final int maxAttempts;
+  private final long initialBackoffMillis;
+  private final long maxBackoffMillis;
+  private final MeterRegistry meterRegistry;
+
+  public ConcurrencyRetry(
+      @Value("${app.retry.max-attempts}") int maxAttempts,
+      @Value("${app.retry.initial-backoff}") Duration initialBackoff,
+      @Value("${app.retry.max-backoff}") Duration maxBackoff,
+      MeterRegistry meterRegistry) {
+    this.maxAttempts = maxAttempts;
+    this.initialBackoffMillis = initialBackoff.toMillis();
+    this.maxBackoffMillis = maxBackoff.toMillis();
+    this.meterRegistry = meterRegistry;
+  }
+
+  public <T> T execute(String operation, Supplier<T> action) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return action.get();
+      } catch (ConcurrencyFailureException e) {
+        counter("banking.concurrency.conflicts", operation).increment();
+        if (attempt >= maxAttempts) {
+          counter("banking.concurrency.give-ups", operation).increment();
+          throw e;
+        }
+        counter("banking.concurrency.retries", operation).increment();
+        backOff(attempt, e);
+      }
+    }
+  }
+
+  public void run(String operation, Runnable action) {
+    execute(
+        operation,
+        () -> {
+          action.run();
+          return null;
+        });
+  }
+
+  private void backOff(int attempt, ConcurrencyFailureException cause) {
+    long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 30));
+    try {
+      Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw cause;
+    }
+  }
+
+  private Counter counter(String name, String operation) {
+    return meterRegistry.counter(name, "operation", operation);
+  }
+}
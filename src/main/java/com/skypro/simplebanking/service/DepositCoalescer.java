@@ -0,0 +1,143 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Merges concurrent deposits to the same account into one balance update, enabled with {@code
+ * app.deposit.coalescing.enabled=true}. The first deposit to arrive for an account leads a group:
+ * it waits up to {@code app.deposit.coalescing.window} or until the group holds {@code
+ * app.deposit.coalescing.max-batch-size} deposits, applies all of them through {@link
+ * AccountService#depositAllToAccount} and hands every caller the balance right after its own
+ * deposit. A failure of the group is reported to all of its callers.
+ */
+@Service
+@ConditionalOnProperty(name = "app.deposit.coalescing.enabled", havingValue = "true")
+public class DepositCoalescer {
+  private final AccountService accountService;
+  private final AccountLockManager accountLockManager;
+  private final DistributionSummary groupSizes;
+  private final long windowNanos;
+  private final int maxBatchSize;
+  private final ConcurrentMap<String, Group> groups = new ConcurrentHashMap<>();
+
+  public DepositCoalescer(
+      AccountService accountService,
+      AccountLockManager accountLockManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.deposit.coalescing.window}") Duration window,
+      @Value("${app.deposit.coalescing.max-batch-size}") int maxBatchSize) {
+    this.accountService = accountService;
+    this.accountLockManager = accountLockManager;
+    this.groupSizes = meterRegistry.summary("banking.deposit.coalesced");
+    this.windowNanos = window.toNanos();
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  public AccountDTO deposit(long userId, long accountId, long amount) {
+    if (amount < 0) {
+      throw new InvalidAmountException();
+    }
+    String key = userId + ":" + accountId;
+    while (true) {
+      Group group = groups.computeIfAbsent(key, ignored -> new Group());
+      int index = group.join(amount);
+      if (index < 0) {
+        groups.remove(key, group);
+      } else if (index == 0) {
+        return lead(key, group, userId, accountId);
+      } else {
+        return group.await(index);
+      }
+    }
+  }
+
+  private AccountDTO lead(String key, Group group, long userId, long accountId) {
+    List<Long> amounts = group.close(windowNanos);
+    groups.remove(key, group);
+    groupSizes.record(amounts.size());
+    try {
+      List<AccountDTO> accounts =
+          accountLockManager.withLocks(
+              "account.deposit",
+              List.of(accountId),
+              () -> accountService.depositAllToAccount(userId, accountId, amounts));
+      group.result.complete(accounts);
+      return accounts.get(0);
+    } catch (RuntimeException e) {
+      group.result.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /** Guarded by a {@link ReentrantLock}, on which a waiting virtual thread does not pin. */
+  private final class Group {
+    private final List<Long> amounts = new ArrayList<>();
+    private final CompletableFuture<List<AccountDTO>> result = new CompletableFuture<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition full = lock.newCondition();
+    private boolean closed;
+
+    /** Adds a deposit and returns its position, or -1 if the group no longer accepts deposits. */
+    private int join(long amount) {
+      lock.lock();
+      try {
+        if (closed) {
+          return -1;
+        }
+        amounts.add(amount);
+        if (amounts.size() >= maxBatchSize) {
+          closed = true;
+          full.signalAll();
+        }
+        return amounts.size() - 1;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private List<Long> close(long timeoutNanos) {
+      lock.lock();
+      try {
+        long remaining = timeoutNanos;
+        while (!closed && remaining > 0) {
+          try {
+            remaining = full.awaitNanos(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+        closed = true;
+        return List.copyOf(amounts);
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    private AccountDTO await(int index) {
+      try {
+        return result.join().get(index);
+      } catch (CompletionException e) {
+        if (e.getCause() instanceof RuntimeException cause) {
+          throw cause;
+        }
+        throw e;
+      }
+    }
+  }
+}
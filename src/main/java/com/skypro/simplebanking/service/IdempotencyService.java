@@ -0,0 +1,208 @@
+package com.skypro.simplebanking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.skypro.simplebanking.entity.IdempotencyRecord;
+import com.skypro.simplebanking.exception.InvalidIdempotencyKeyException;
+import com.skypro.simplebanking.repository.IdempotencyRecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Executes money-moving operations at most once per {@code Idempotency-Key}. The response of the
+ * first execution is stored in {@code idempotency_keys} in the same transaction as the balance
+ * change and served to every retry, from an in-memory LRU when possible. Concurrent requests with
+ * the same key wait for the one already in flight instead of running the operation again. A
+ * SHA-256 of the request body is stored with the key, and a retry whose body differs is rejected
+ * with 422 rather than answered with the response to another request. Keys are kept for {@code
+ * app.idempotency.retention}; a retry that arrives later runs the operation again.
+ */
+@Service
+public class IdempotencyService {
+  private static final int MAX_KEY_LENGTH = 255;
+
+  private final IdempotencyRecordRepository idempotencyRecordRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final Cache<String, IdempotencyRecord> completed;
+  private final Duration retention;
+  private final int purgeChunkSize;
+  private final Counter purged;
+  private final ConcurrentMap<String, CompletableFuture<IdempotencyRecord>> inFlight =
+      new ConcurrentHashMap<>();
+
+  public IdempotencyService(
+      IdempotencyRecordRepository idempotencyRecordRepository,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      MeterRegistry meterRegistry,
+      @Value("${app.idempotency.cache-size}") long cacheSize,
+      @Value("${app.idempotency.cache-ttl}") Duration cacheTtl,
+      @Value("${app.idempotency.retention}") Duration retention,
+      @Value("${app.idempotency.purge-chunk-size}") int purgeChunkSize) {
+    this.idempotencyRecordRepository = idempotencyRecordRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.completed =
+        Caffeine.newBuilder()
+            .maximumSize(cacheSize)
+            .expireAfterWrite(cacheTtl)
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, completed, "idempotency");
+    this.retention = retention;
+    this.purgeChunkSize = purgeChunkSize;
+    this.purged = meterRegistry.counter("banking.idempotency.purged");
+  }
+
+  public <T> T execute(
+      long userId,
+      String key,
+      String operation,
+      Object request,
+      Class<T> responseType,
+      Supplier<T> action) {
+    if (key == null) {
+      return action.get();
+    }
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key should be 1 to " + MAX_KEY_LENGTH + " characters long");
+    }
+    String requestHash = hash(request);
+    String cacheKey = userId + ":" + key;
+    IdempotencyRecord cached = completed.getIfPresent(cacheKey);
+    if (cached != null) {
+      return read(cached, operation, requestHash, responseType);
+    }
+    CompletableFuture<IdempotencyRecord> execution = new CompletableFuture<>();
+    CompletableFuture<IdempotencyRecord> running = inFlight.putIfAbsent(cacheKey, execution);
+    if (running != null) {
+      return awaitRunning(running, userId, key, operation, request, responseType, action);
+    }
+    try {
+      IdempotencyRecord record = executeOnce(userId, key, operation, requestHash, action);
+      completed.put(cacheKey, record);
+      execution.complete(record);
+      return read(record, operation, requestHash, responseType);
+    } catch (RuntimeException e) {
+      execution.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(cacheKey, execution);
+    }
+  }
+
+  /**
+   * Deletes keys older than the retention in chunks of {@code app.idempotency.purge-chunk-size},
+   * each in its own short transaction, found through the index on {@code createdAt}.
+   */
+  @Scheduled(
+      initialDelayString = "${app.idempotency.purge-interval}",
+      fixedDelayString = "${app.idempotency.purge-interval}")
+  public void purgeExpired() {
+    Instant cutoff = Instant.now().minus(retention);
+    int deleted;
+    do {
+      deleted =
+          transactionTemplate.execute(
+              status -> idempotencyRecordRepository.deleteCreatedBefore(cutoff, purgeChunkSize));
+      purged.increment(deleted);
+    } while (deleted == purgeChunkSize);
+  }
+
+  private <T> T awaitRunning(
+      CompletableFuture<IdempotencyRecord> running,
+      long userId,
+      String key,
+      String operation,
+      Object request,
+      Class<T> responseType,
+      Supplier<T> action) {
+    IdempotencyRecord record;
+    try {
+      record = running.join();
+    } catch (CompletionException e) {
+      // Nothing was committed for the failed attempt, so this request may try on its own.
+      return execute(userId, key, operation, request, responseType, action);
+    }
+    return read(record, operation, hash(request), responseType);
+  }
+
+  private IdempotencyRecord executeOnce(
+      long userId, String key, String operation, String requestHash, Supplier<?> action) {
+    try {
+      return transactionTemplate.execute(
+          status ->
+              idempotencyRecordRepository
+                  .findByUserIdAndIdempotencyKey(userId, key)
+                  .orElseGet(() -> save(userId, key, operation, requestHash, action.get())));
+    } catch (DataIntegrityViolationException e) {
+      // Another node committed the same key first; its response wins.
+      return idempotencyRecordRepository
+          .findByUserIdAndIdempotencyKey(userId, key)
+          .orElseThrow(() -> e);
+    }
+  }
+
+  private IdempotencyRecord save(
+      long userId, String key, String operation, String requestHash, Object response) {
+    IdempotencyRecord record = new IdempotencyRecord();
+    record.setUserId(userId);
+    record.setIdempotencyKey(key);
+    record.setOperation(operation);
+    record.setRequestHash(requestHash);
+    record.setCreatedAt(Instant.now());
+    try {
+      record.setResponse(objectMapper.writeValueAsString(response));
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+    return idempotencyRecordRepository.saveAndFlush(record);
+  }
+
+  private <T> T read(
+      IdempotencyRecord record, String operation, String requestHash, Class<T> responseType) {
+    if (!record.getOperation().equals(operation)) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key was already used for " + record.getOperation());
+    }
+    // Records stored before request hashes were kept have none and match any body.
+    if (record.getRequestHash() != null && !record.getRequestHash().equals(requestHash)) {
+      throw new InvalidIdempotencyKeyException(
+          "Idempotency-Key was already used with a different request body");
+    }
+    try {
+      return objectMapper.readValue(record.getResponse(), responseType);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private String hash(Object request) {
+    try {
+      byte[] body = objectMapper.writeValueAsBytes(request);
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
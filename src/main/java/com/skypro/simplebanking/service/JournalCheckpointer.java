@@ -0,0 +1,118 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.JournalCheckpointView;
+import com.skypro.simplebanking.repository.JournalEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Periodically compares every account balance with the sum of its journal entries. Accounts are
+ * walked by id in chunks, each read by one statement in its own short transaction, so the check
+ * never holds locks or a connection for long. Only runs with the JPA ledger, because the in-memory
+ * engine writes balances back to the database with a delay.
+ *
+ * <p>The sum of each account is kept in {@code journal_checkpoints} up to a cutoff, so a run only
+ * reads the entries created after the previous cutoff. The cutoff trails the clock by {@code
+ * app.journal.checkpoint-lag}, which must exceed the longest transaction that writes journal
+ * entries: an entry committed after the cutoff moved past its {@code createdAt} would be missed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.ledger.engine", havingValue = "jpa")
+public class JournalCheckpointer {
+  private static final Logger log = LoggerFactory.getLogger(JournalCheckpointer.class);
+  private static final String UPSERT_SQL =
+      "INSERT INTO journal_checkpoints (account_id, journal_sum, verified_until) VALUES (?, ?, ?)"
+          + " ON CONFLICT (account_id) DO UPDATE"
+          + " SET journal_sum = EXCLUDED.journal_sum, verified_until = EXCLUDED.verified_until"
+          + " WHERE journal_checkpoints.verified_until < EXCLUDED.verified_until";
+
+  private final JournalEntryRepository journalEntryRepository;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+  private final Duration lag;
+  private final Counter verified;
+  private final Counter mismatches;
+
+  public JournalCheckpointer(
+      JournalEntryRepository journalEntryRepository,
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      MeterRegistry meterRegistry,
+      @Value("${app.journal.checkpoint-chunk-size}") int chunkSize,
+      @Value("${app.journal.checkpoint-lag}") Duration lag) {
+    this.journalEntryRepository = journalEntryRepository;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+    this.lag = lag;
+    this.verified = meterRegistry.counter("banking.journal.verified");
+    this.mismatches = meterRegistry.counter("banking.journal.mismatches");
+  }
+
+  @Scheduled(
+      initialDelayString = "${app.journal.checkpoint-interval}",
+      fixedDelayString = "${app.journal.checkpoint-interval}")
+  public void verify() {
+    verify(Instant.now().minus(lag));
+  }
+
+  /** Verifies every account and moves its checkpoint up to {@code cutoff}. */
+  public void verify(Instant cutoff) {
+    long after = 0;
+    List<JournalCheckpointView> chunk;
+    do {
+      long from = after;
+      chunk =
+          transactionTemplate.execute(
+              status -> {
+                List<JournalCheckpointView> balances =
+                    journalEntryRepository.findCheckpointedBalancesAfter(from, cutoff, chunkSize);
+                saveCheckpoints(balances, cutoff);
+                return balances;
+              });
+      for (JournalCheckpointView balance : chunk) {
+        if (balance.getBalance() != balance.getJournalBalance()) {
+          mismatches.increment();
+          log.warn(
+              "Account {} has balance {} but its journal sums to {}",
+              balance.getAccountId(),
+              balance.getBalance(),
+              balance.getJournalBalance());
+        }
+        after = balance.getAccountId();
+      }
+      verified.increment(chunk.size());
+    } while (chunk.size() == chunkSize);
+  }
+
+  private void saveCheckpoints(List<JournalCheckpointView> balances, Instant cutoff) {
+    List<JournalCheckpointView> moved =
+        balances.stream()
+            .filter(balance -> balance.getSettledEntries() > 0)
+            .collect(Collectors.toList());
+    Timestamp verifiedUntil = Timestamp.from(cutoff);
+    jdbcTemplate.batchUpdate(
+        UPSERT_SQL,
+        moved,
+        moved.size(),
+        (statement, balance) -> {
+          statement.setLong(1, balance.getAccountId());
+          statement.setLong(2, balance.getSettledJournalBalance());
+          statement.setTimestamp(3, verifiedUntil);
+        });
+  }
+}
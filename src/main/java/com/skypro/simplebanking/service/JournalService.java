@@ -0,0 +1,108 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.JournalBalanceView;
+import com.skypro.simplebanking.entity.JournalEntry;
+import com.skypro.simplebanking.repository.JournalEntryRepository;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Appends double-entry rows to {@code journal_entries} in the transaction of the balance change.
+ * Ids come from a pooled sequence, so the rows of a request are inserted as one JDBC batch on
+ * flush. Accounts created before the journal existed receive an opening entry on start, before
+ * the application accepts requests.
+ */
+@Service
+public class JournalService implements SmartInitializingSingleton {
+  private final JournalEntryRepository journalEntryRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int chunkSize;
+
+  public JournalService(
+      JournalEntryRepository journalEntryRepository,
+      TransactionTemplate transactionTemplate,
+      @Value("${app.journal.checkpoint-chunk-size}") int chunkSize) {
+    this.journalEntryRepository = journalEntryRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.chunkSize = chunkSize;
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordOpening(long accountId, long amount) {
+    record(JournalEntry.Type.OPENING, null, accountId, amount);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordDeposit(long accountId, long amount) {
+    record(JournalEntry.Type.DEPOSIT, null, accountId, amount);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordWithdrawal(long accountId, long amount) {
+    record(JournalEntry.Type.WITHDRAWAL, accountId, null, amount);
+  }
+
+  @Transactional(propagation = Propagation.MANDATORY)
+  public void recordTransfer(long fromAccountId, long toAccountId, long amount) {
+    record(JournalEntry.Type.TRANSFER, fromAccountId, toAccountId, amount);
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    long after = 0;
+    List<JournalBalanceView> chunk;
+    do {
+      long from = after;
+      chunk =
+          transactionTemplate.execute(
+              status -> {
+                List<JournalBalanceView> balances =
+                    journalEntryRepository.findUnjournaledBalancesAfter(from, chunkSize);
+                for (JournalBalanceView balance : balances) {
+                  recordOpening(balance.getAccountId(), balance.getBalance());
+                }
+                return balances;
+              });
+      if (!chunk.isEmpty()) {
+        after = chunk.get(chunk.size() - 1).getAccountId();
+      }
+    } while (chunk.size() == chunkSize);
+  }
+
+  private void record(
+      JournalEntry.Type type, Long debitAccountId, Long creditAccountId, long amount) {
+    if (amount == 0) {
+      return;
+    }
+    UUID operationId = UUID.randomUUID();
+    Instant now = Instant.now();
+    journalEntryRepository.saveAll(
+        List.of(
+            entry(operationId, type, debitAccountId, JournalEntry.Direction.DEBIT, amount, now),
+            entry(operationId, type, creditAccountId, JournalEntry.Direction.CREDIT, amount, now)));
+  }
+
+  private static JournalEntry entry(
+      UUID operationId,
+      JournalEntry.Type type,
+      Long accountId,
+      JournalEntry.Direction direction,
+      long amount,
+      Instant createdAt) {
+    JournalEntry entry = new JournalEntry();
+    entry.setOperationId(operationId);
+    entry.setType(type);
+    entry.setAccountId(accountId);
+    entry.setDirection(direction);
+    entry.setAmount(amount);
+    entry.setCreatedAt(createdAt);
+    return entry;
+  }
+}
@@ -0,0 +1,779 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.LedgerAccountView;
+import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.LedgerCheckpoint;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.LedgerCheckpointRepository;
+import com.skypro.simplebanking.service.LedgerWriteAheadLog.Entry;
+import com.skypro.simplebanking.service.LedgerWriteAheadLog.Kind;
+import com.skypro.simplebanking.service.LedgerWriteAheadLog.Movement;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * In-memory execution engine for balance changes, enabled with {@code app.ledger.engine=memory}.
+ *
+ * <p>All balances live in memory and are changed by a single writer thread that drains commands
+ * from a bounded queue in batches. The movements of a batch are appended to the write-ahead log
+ * and made durable with one fsync before any command of the batch is acknowledged. The accounts
+ * table is brought up to date asynchronously by periodic snapshots, each of which records the log
+ * sequence it covers in {@code ledger_checkpoint}. On start the engine loads the accounts table,
+ * replays the log entries after the checkpoint and immediately writes a fresh snapshot.
+ *
+ * <p>A change made inside a database transaction is logged as pending and settled when that
+ * transaction completes: a commit or abort marker referencing it is appended, an abort also
+ * reverses it in memory, and recovery replays only committed changes. The transaction itself
+ * inserts the entry's sequence into {@code ledger_commits}, which decides a pending entry whose
+ * marker never reached the log because the process died first. Until settlement credited amounts
+ * are held: they cannot be spent, are not published and are left out of snapshots, so an abort
+ * never takes back money someone else could have used. Accounts the engine has not seen yet are
+ * loaded by the submitting thread, never by the writer.
+ */
+@Service
+@ConditionalOnProperty(name = "app.ledger.engine", havingValue = "memory")
+public class LedgerEngine implements SmartLifecycle {
+  private static final Logger log = LoggerFactory.getLogger(LedgerEngine.class);
+  private static final long NO_USER = -1;
+  private static final String SNAPSHOT_SQL =
+      "UPDATE accounts a SET amount = ?"
+          + " - COALESCE((SELECT SUM(s.amount) FROM account_slots s WHERE s.account_id = a.id), 0)"
+          + ", version = version + 1 WHERE a.id = ?";
+  private static final String INSERT_COMMIT_SQL =
+      "INSERT INTO ledger_commits (wal_sequence) VALUES (?)";
+  private static final String COUNT_COMMITS_SQL =
+      "SELECT COUNT(*) FROM ledger_commits WHERE wal_sequence = ?";
+  private static final String DELETE_COMMITS_SQL =
+      "DELETE FROM ledger_commits WHERE wal_sequence < ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+  private final TransactionTemplate separateTransaction;
+  private final AccountRepository accountRepository;
+  private final LedgerCheckpointRepository ledgerCheckpointRepository;
+  private final LedgerWriteAheadLog writeAheadLog;
+  private final BlockingQueue<Command> queue;
+  private final int maxBatchSize;
+  private final Duration snapshotInterval;
+
+  private final Map<Long, LedgerAccount> accounts = new ConcurrentHashMap<>();
+  private final Set<Long> dirtyAccounts = new HashSet<>();
+  private final Map<Long, Long> unsavedSnapshot = new HashMap<>();
+  /** Sequences of logged pending entries not settled yet; writer thread only. */
+  private final NavigableSet<Long> unsettled = new TreeSet<>();
+  private long nextSequence;
+  private Thread writer;
+  private ScheduledExecutorService snapshotExecutor;
+  private volatile boolean running;
+  private volatile IOException failure;
+
+  public LedgerEngine(
+      JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate,
+      AccountRepository accountRepository,
+      LedgerCheckpointRepository ledgerCheckpointRepository,
+      @Value("${app.ledger.wal-dir}") Path walDirectory,
+      @Value("${app.ledger.queue-capacity}") int queueCapacity,
+      @Value("${app.ledger.max-batch-size}") int maxBatchSize,
+      @Value("${app.ledger.snapshot-interval}") Duration snapshotInterval) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.separateTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+    this.separateTransaction.setPropagationBehavior(
+        TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    this.separateTransaction.setReadOnly(true);
+    this.accountRepository = accountRepository;
+    this.ledgerCheckpointRepository = ledgerCheckpointRepository;
+    this.writeAheadLog = new LedgerWriteAheadLog(walDirectory);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.maxBatchSize = maxBatchSize;
+    this.snapshotInterval = snapshotInterval;
+  }
+
+  public AccountDTO deposit(long userId, long accountId, long amount) {
+    Command command =
+        submitInTransaction(
+            new Command(
+                List.of(new Posting(NO_USER, Movement.EXTERNAL, userId, accountId, amount)),
+                true));
+    command.throwFirstFailure();
+    return new AccountDTO(accountId, command.balances[0], accounts.get(accountId).currency);
+  }
+
+  public AccountDTO withdraw(long userId, long accountId, long amount) {
+    Command command =
+        submitInTransaction(
+            new Command(
+                List.of(new Posting(userId, accountId, NO_USER, Movement.EXTERNAL, amount)),
+                true));
+    command.throwFirstFailure();
+    return new AccountDTO(accountId, command.balances[0], accounts.get(accountId).currency);
+  }
+
+  public void transfer(long userId, TransferRequest transferRequest) {
+    submitInTransaction(new Command(List.of(Posting.of(userId, transferRequest)), true))
+        .throwFirstFailure();
+  }
+
+  /** Applies transfers of possibly different users, {@code userIds.get(i)} owning request i. */
+  public List<TransferResultDTO> transferAll(
+      List<Long> userIds, List<TransferRequest> transferRequests, boolean atomic) {
+    List<Posting> postings = new ArrayList<>(transferRequests.size());
+    for (int i = 0; i < transferRequests.size(); i++) {
+      postings.add(Posting.of(userIds.get(i), transferRequests.get(i)));
+    }
+    Command command = submitInTransaction(new Command(postings, atomic));
+    List<TransferResultDTO> results = new ArrayList<>(postings.size());
+    for (int i = 0; i < postings.size(); i++) {
+      if (command.failures[i] != null) {
+        results.add(TransferResultDTO.failed(i, TransferService.describe(command.failures[i])));
+      } else if (command.rolledBack) {
+        results.add(new TransferResultDTO(i, TransferResultDTO.Status.ROLLED_BACK, null));
+      } else {
+        results.add(TransferResultDTO.completed(i));
+      }
+    }
+    return results;
+  }
+
+  /** Latest durable and settled balance of an account, if the engine has loaded it. */
+  public OptionalLong balance(long accountId) {
+    LedgerAccount account = accounts.get(accountId);
+    return account == null ? OptionalLong.empty() : OptionalLong.of(account.published);
+  }
+
+  public Optional<AccountCurrency> currency(long accountId) {
+    return Optional.ofNullable(accounts.get(accountId)).map(account -> account.currency);
+  }
+
+  @Override
+  public void start() {
+    try {
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    running = true;
+    writer = new Thread(this::runWriter, "ledger-writer");
+    writer.start();
+    snapshotExecutor =
+        Executors.newSingleThreadScheduledExecutor(task -> new Thread(task, "ledger-snapshot"));
+    snapshotExecutor.scheduleWithFixedDelay(
+        this::snapshot,
+        snapshotInterval.toMillis(),
+        snapshotInterval.toMillis(),
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public void stop() {
+    snapshotExecutor.shutdown();
+    try {
+      snapshotExecutor.awaitTermination(1, TimeUnit.MINUTES);
+      running = false;
+      // Wake the writer with an empty command; interrupting it could close the log channel.
+      queue.put(new Command(List.of(), false));
+      writer.join();
+      List<Command> leftovers = new ArrayList<>();
+      queue.drainTo(leftovers);
+      leftovers.forEach(
+          command ->
+              command.result.completeExceptionally(
+                  new IllegalStateException("Ledger engine is not running")));
+      persist(captureDirtyAccounts(), nextSequence - 1, retainedSequence());
+      writeAheadLog.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  @Override
+  public int getPhase() {
+    // Start before, and stop after, the embedded web server and the async transfer workers.
+    return Integer.MAX_VALUE - 3;
+  }
+
+  /**
+   * Submits a command and, inside a transaction, settles its movements when the transaction
+   * completes. The settlement is submitted from {@code afterCompletion}, so it is processed before
+   * the transaction's caller, or a retry of it, sees the outcome.
+   */
+  private Command submitInTransaction(Command command) {
+    preload(command.postings);
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return submit(command);
+    }
+    command.pending = true;
+    submit(command);
+    if (!command.movements.isEmpty()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              boolean committed =
+                  status == STATUS_COMMITTED
+                      || (status == STATUS_UNKNOWN && committedInDatabase(command.sequence));
+              submit(Command.settlementOf(command, committed));
+            }
+          });
+      jdbcTemplate.update(INSERT_COMMIT_SQL, command.sequence);
+    }
+    return command;
+  }
+
+  private boolean committedInDatabase(long sequence) {
+    Long commits =
+        separateTransaction.execute(
+            status -> jdbcTemplate.queryForObject(COUNT_COMMITS_SQL, Long.class, sequence));
+    return commits != null && commits > 0;
+  }
+
+  private void preload(List<Posting> postings) {
+    for (Posting posting : postings) {
+      for (long accountId : new long[] {posting.fromAccountId, posting.toAccountId}) {
+        if (accountId != Movement.EXTERNAL && !accounts.containsKey(accountId)) {
+          load(accountId);
+        }
+      }
+    }
+  }
+
+  private Command submit(Command command) {
+    if (failure != null) {
+      throw new IllegalStateException("Ledger write-ahead log is unavailable", failure);
+    }
+    if (!running) {
+      throw new IllegalStateException("Ledger engine is not running");
+    }
+    try {
+      queue.put(command);
+      // The writer may have drained the queue for the last time between the check and the put.
+      if (!running && queue.remove(command)) {
+        throw new IllegalStateException("Ledger engine is not running");
+      }
+      return command.result.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for the ledger", e);
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void runWriter() {
+    List<Command> batch = new ArrayList<>(maxBatchSize);
+    while (running) {
+      try {
+        batch.add(queue.take());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      queue.drainTo(batch, maxBatchSize - 1);
+      process(batch);
+      batch.clear();
+    }
+    queue.drainTo(batch);
+    process(batch);
+  }
+
+  private void process(List<Command> batch) {
+    List<Command> unsynced = new ArrayList<>(batch.size());
+    for (Command command : batch) {
+      if (command.snapshot) {
+        sync(unsynced);
+        capture(command);
+        continue;
+      }
+      if (failure != null) {
+        command.result.completeExceptionally(
+            new IllegalStateException("Ledger write-ahead log is unavailable", failure));
+        continue;
+      }
+      if (command.settled != null) {
+        settle(command);
+        unsynced.add(command);
+        continue;
+      }
+      execute(command);
+      if (command.movements.isEmpty()) {
+        command.result.complete(command);
+      } else {
+        command.sequence = nextSequence++;
+        Kind kind = command.pending ? Kind.PENDING : Kind.COMMITTED;
+        writeAheadLog.append(Entry.of(command.sequence, kind, command.movements));
+        if (command.pending) {
+          unsettled.add(command.sequence);
+        }
+        unsynced.add(command);
+      }
+    }
+    sync(unsynced);
+  }
+
+  private void sync(List<Command> unsynced) {
+    if (unsynced.isEmpty()) {
+      return;
+    }
+    try {
+      writeAheadLog.sync();
+    } catch (IOException e) {
+      // Entries may be partly on disk, so the engine stops accepting work instead of guessing.
+      log.error("Could not sync the ledger write-ahead log", e);
+      failure = e;
+      writeAheadLog.discard();
+      for (int i = unsynced.size() - 1; i >= 0; i--) {
+        undo(unsynced.get(i).movements);
+        if (unsynced.get(i).pending) {
+          holdCredits(unsynced.get(i).movements, -1);
+          unsettled.remove(unsynced.get(i).sequence);
+        }
+        unsynced.get(i).result.completeExceptionally(
+            new IllegalStateException("Ledger write-ahead log is unavailable", e));
+      }
+      unsynced.clear();
+      return;
+    }
+    for (Command command : unsynced) {
+      List<Movement> movements =
+          command.settled != null ? command.settled.movements : command.movements;
+      for (Movement movement : movements) {
+        publish(movement.fromAccountId);
+        publish(movement.toAccountId);
+      }
+      command.result.complete(command);
+    }
+    unsynced.clear();
+  }
+
+  private void execute(Command command) {
+    for (int i = 0; i < command.postings.size(); i++) {
+      Posting posting = command.postings.get(i);
+      try {
+        LedgerAccount source = check(posting);
+        Movement movement = posting.toMovement();
+        apply(movement);
+        command.movements.add(movement);
+        command.balances[i] =
+            source != null ? source.balance : accounts.get(posting.toAccountId).balance;
+      } catch (RuntimeException e) {
+        command.failures[i] = e;
+        command.failed = true;
+      }
+    }
+    if (command.atomic && command.failed && !command.movements.isEmpty()) {
+      undo(command.movements);
+      command.movements.clear();
+      command.rolledBack = true;
+    }
+    if (command.pending) {
+      holdCredits(command.movements, 1);
+    }
+  }
+
+  /**
+   * Releases the credits held for a pending command and logs its outcome. An aborted command's
+   * movements are reversed in memory; the abort marker keeps recovery from replaying them.
+   */
+  private void settle(Command command) {
+    Command settled = command.settled;
+    unsettled.remove(settled.sequence);
+    holdCredits(settled.movements, -1);
+    if (!command.committed) {
+      undo(settled.movements);
+    }
+    writeAheadLog.append(
+        Entry.marker(
+            nextSequence++, command.committed ? Kind.COMMIT : Kind.ABORT, settled.sequence));
+  }
+
+  /** Changes the held credits, which also changes the balance a snapshot stores. */
+  private void holdCredits(List<Movement> movements, int sign) {
+    for (Movement movement : movements) {
+      LedgerAccount destination = accounts.get(movement.toAccountId);
+      if (destination != null) {
+        destination.held += sign * movement.amount;
+        dirtyAccounts.add(destination.id);
+      }
+    }
+  }
+
+  private LedgerAccount check(Posting posting) {
+    if (posting.amount < 0) {
+      throw new InvalidAmountException();
+    }
+    LedgerAccount source =
+        posting.fromAccountId == Movement.EXTERNAL
+            ? null
+            : ownedAccount(posting.fromUserId, posting.fromAccountId);
+    LedgerAccount destination =
+        posting.toAccountId == Movement.EXTERNAL
+            ? null
+            : ownedAccount(posting.toUserId, posting.toAccountId);
+    if (source != null && destination != null && source.currency != destination.currency) {
+      throw new WrongCurrencyException();
+    }
+    if (source != null && source.balance - source.held < posting.amount) {
+      throw new InsufficientFundsException(
+          "Cannot withdraw " + posting.amount + " " + source.currency.name());
+    }
+    return source;
+  }
+
+  private LedgerAccount ownedAccount(long userId, long accountId) {
+    LedgerAccount account = accounts.get(accountId);
+    if (account == null || account.userId != userId) {
+      throw new AccountNotFoundException();
+    }
+    return account;
+  }
+
+  /**
+   * Loads an account the engine has not seen yet. Its row is only written by snapshots of loaded
+   * accounts, so the stored balance is current; a concurrent load of the same account is dropped.
+   */
+  private void load(long accountId) {
+    transactionTemplate
+        .execute(status -> accountRepository.findLedgerAccount(accountId))
+        .map(LedgerEngine::toLedgerAccount)
+        .ifPresent(account -> accounts.putIfAbsent(accountId, account));
+  }
+
+  private void apply(Movement movement) {
+    adjust(movement.fromAccountId, -movement.amount);
+    adjust(movement.toAccountId, movement.amount);
+  }
+
+  private void adjust(long accountId, long amount) {
+    LedgerAccount account = accounts.get(accountId);
+    if (account != null) {
+      account.balance += amount;
+      dirtyAccounts.add(account.id);
+    }
+  }
+
+  private void undo(List<Movement> movements) {
+    for (int i = movements.size() - 1; i >= 0; i--) {
+      Movement movement = movements.get(i);
+      apply(new Movement(movement.toAccountId, movement.fromAccountId, movement.amount));
+    }
+  }
+
+  private void publish(long accountId) {
+    LedgerAccount account = accounts.get(accountId);
+    if (account != null) {
+      account.published = account.balance - account.held;
+    }
+  }
+
+  private void capture(Command command) {
+    command.capturedBalances = captureDirtyAccounts();
+    command.capturedSequence = nextSequence - 1;
+    command.retainedSequence = retainedSequence();
+    try {
+      writeAheadLog.roll(nextSequence);
+      command.result.complete(command);
+    } catch (IOException e) {
+      log.error("Could not roll the ledger write-ahead log", e);
+      failure = e;
+      command.result.completeExceptionally(e);
+    }
+  }
+
+  /** Settled balances of the accounts changed since the last capture, without held credits. */
+  private Map<Long, Long> captureDirtyAccounts() {
+    Map<Long, Long> balances = new HashMap<>(dirtyAccounts.size());
+    for (Long accountId : dirtyAccounts) {
+      LedgerAccount account = accounts.get(accountId);
+      balances.put(accountId, account.balance - account.held);
+    }
+    dirtyAccounts.clear();
+    return balances;
+  }
+
+  /** First log sequence recovery may still need: the oldest unsettled entry, if any. */
+  private long retainedSequence() {
+    return unsettled.isEmpty() ? nextSequence : unsettled.first();
+  }
+
+  private void snapshot() {
+    try {
+      Command command = submit(Command.snapshotRequest());
+      persist(command.capturedBalances, command.capturedSequence, command.retainedSequence);
+      writeAheadLog.deleteSegmentsBefore(command.retainedSequence);
+    } catch (RuntimeException e) {
+      log.warn("Ledger snapshot failed, it will be retried", e);
+    }
+  }
+
+  /**
+   * Writes captured balances; balances that fail to save are kept and retried next time. Commit
+   * rows of entries before {@code retainedSequence} are settled and no longer needed.
+   */
+  private void persist(Map<Long, Long> balances, long walSequence, long retainedSequence) {
+    unsavedSnapshot.putAll(balances);
+    List<Object[]> updates = new ArrayList<>(unsavedSnapshot.size());
+    unsavedSnapshot.forEach((accountId, balance) -> updates.add(new Object[] {balance, accountId}));
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate(SNAPSHOT_SQL, updates);
+          }
+          LedgerCheckpoint checkpoint =
+              ledgerCheckpointRepository
+                  .findById(LedgerCheckpoint.SINGLETON_ID)
+                  .orElseGet(LedgerCheckpoint::new);
+          checkpoint.setId(LedgerCheckpoint.SINGLETON_ID);
+          checkpoint.setWalSequence(walSequence);
+          ledgerCheckpointRepository.save(checkpoint);
+          jdbcTemplate.update(DELETE_COMMITS_SQL, retainedSequence);
+        });
+    unsavedSnapshot.clear();
+  }
+
+  /**
+   * Loads the accounts table and replays the log after its checkpoint. The snapshot of the
+   * checkpoint holds the debits of the entries that were pending when it was captured, but not
+   * their credits. Pending entries are replayed according to their marker, or to {@code
+   * ledger_commits} when the process died before the marker was logged.
+   */
+  private void recover() throws IOException {
+    long checkpoint =
+        transactionTemplate.execute(
+            status -> {
+              try (Stream<LedgerAccountView> views = accountRepository.streamLedgerAccounts()) {
+                views.forEach(
+                    view -> {
+                      LedgerAccount account = toLedgerAccount(view);
+                      accounts.put(account.id, account);
+                    });
+              }
+              return ledgerCheckpointRepository
+                  .findById(LedgerCheckpoint.SINGLETON_ID)
+                  .map(LedgerCheckpoint::getWalSequence)
+                  .orElse(0L);
+            });
+    Map<Long, Entry> pending = new HashMap<>();
+    Map<Long, Boolean> outcomes = new HashMap<>();
+    Set<Long> settledBeforeCheckpoint = new HashSet<>();
+    long lastSequence = checkpoint;
+    for (Entry entry : writeAheadLog.readAll()) {
+      boolean afterCheckpoint = entry.sequence > checkpoint;
+      if (afterCheckpoint) {
+        if (entry.sequence != lastSequence + 1) {
+          log.warn("Ledger write-ahead log has a gap after entry {}", lastSequence);
+          break;
+        }
+        lastSequence = entry.sequence;
+      }
+      switch (entry.kind) {
+        case COMMITTED -> {
+          if (afterCheckpoint) {
+            entry.movements.forEach(this::apply);
+          }
+        }
+        case PENDING -> pending.put(entry.sequence, entry);
+        case COMMIT, ABORT -> {
+          if (afterCheckpoint) {
+            outcomes.put(entry.reference, entry.kind == Kind.COMMIT);
+          } else {
+            settledBeforeCheckpoint.add(entry.reference);
+          }
+        }
+      }
+    }
+    int inDoubt = 0;
+    for (Entry entry : pending.values()) {
+      if (settledBeforeCheckpoint.contains(entry.sequence)) {
+        continue;
+      }
+      Boolean committed = outcomes.get(entry.sequence);
+      if (committed == null) {
+        inDoubt++;
+        committed = committedInDatabase(entry.sequence);
+      }
+      boolean debitsInSnapshot = entry.sequence <= checkpoint;
+      for (Movement movement : entry.movements) {
+        if (committed && !debitsInSnapshot) {
+          adjust(movement.fromAccountId, -movement.amount);
+        } else if (!committed && debitsInSnapshot) {
+          adjust(movement.fromAccountId, movement.amount);
+        }
+        if (committed) {
+          adjust(movement.toAccountId, movement.amount);
+        }
+      }
+    }
+    log.info(
+        "Ledger recovered {} log entries after checkpoint {}, {} of them decided by the database",
+        lastSequence - checkpoint,
+        checkpoint,
+        inDoubt);
+    dirtyAccounts.forEach(this::publish);
+    // Every entry is settled now; commit rows of lost entries must not decide reused sequences.
+    persist(captureDirtyAccounts(), lastSequence, Long.MAX_VALUE);
+    writeAheadLog.deleteAllSegments();
+    nextSequence = lastSequence + 1;
+    writeAheadLog.open(nextSequence);
+  }
+
+  private static LedgerAccount toLedgerAccount(LedgerAccountView view) {
+    LedgerAccount account =
+        new LedgerAccount(view.getId(), view.getUserId(), view.getAccountCurrency());
+    account.balance = view.getBalance();
+    account.published = account.balance;
+    return account;
+  }
+
+  private static final class LedgerAccount {
+    private final long id;
+    private final long userId;
+    private final AccountCurrency currency;
+    /** Written and read by the writer thread only. */
+    private long balance;
+    /** Credits of unsettled transactions included in the balance; writer thread only. */
+    private long held;
+    /** Settled balance as of the last fsync, readable from any thread. */
+    private volatile long published;
+
+    private LedgerAccount(long id, long userId, AccountCurrency currency) {
+      this.id = id;
+      this.userId = userId;
+      this.currency = currency;
+    }
+  }
+
+  private static final class Posting {
+    private final long fromUserId;
+    private final long fromAccountId;
+    private final long toUserId;
+    private final long toAccountId;
+    private final long amount;
+
+    private Posting(
+        long fromUserId, long fromAccountId, long toUserId, long toAccountId, long amount) {
+      this.fromUserId = fromUserId;
+      this.fromAccountId = fromAccountId;
+      this.toUserId = toUserId;
+      this.toAccountId = toAccountId;
+      this.amount = amount;
+    }
+
+    private static Posting of(long userId, TransferRequest transferRequest) {
+      return new Posting(
+          userId,
+          transferRequest.getFromAccountId(),
+          transferRequest.getToUserId(),
+          transferRequest.getToAccountId(),
+          transferRequest.getAmount());
+    }
+
+    private Movement toMovement() {
+      return new Movement(fromAccountId, toAccountId, amount);
+    }
+  }
+
+  private static final class Command {
+    private final List<Posting> postings;
+    private final boolean atomic;
+    private final boolean snapshot;
+    private final Command settled;
+    private final boolean committed;
+    private final CompletableFuture<Command> result = new CompletableFuture<>();
+    private final List<Movement> movements = new ArrayList<>();
+    private final RuntimeException[] failures;
+    private final long[] balances;
+    private boolean failed;
+    private boolean rolledBack;
+    /** Logged as pending and settled when the surrounding transaction completes. */
+    private boolean pending;
+    private long sequence;
+    private Map<Long, Long> capturedBalances;
+    private long capturedSequence;
+    private long retainedSequence;
+
+    private Command(List<Posting> postings, boolean atomic) {
+      this(postings, atomic, false, null, false);
+    }
+
+    private Command(
+        List<Posting> postings,
+        boolean atomic,
+        boolean snapshot,
+        Command settled,
+        boolean committed) {
+      this.postings = postings;
+      this.atomic = atomic;
+      this.snapshot = snapshot;
+      this.settled = settled;
+      this.committed = committed;
+      this.failures = new RuntimeException[postings.size()];
+      this.balances = new long[postings.size()];
+    }
+
+    private static Command snapshotRequest() {
+      return new Command(List.of(), false, true, null, false);
+    }
+
+    private static Command settlementOf(Command command, boolean committed) {
+      return new Command(List.of(), false, false, command, committed);
+    }
+
+    private void throwFirstFailure() {
+      for (RuntimeException failure : failures) {
+        if (failure != null) {
+          throw failure;
+        }
+      }
+    }
+  }
+}
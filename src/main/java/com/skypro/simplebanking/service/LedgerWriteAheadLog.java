@@ -0,0 +1,263 @@
+package com.skypro.simplebanking.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of the balance movements applied by {@link LedgerEngine}. The log is split into
+ * segment files named after the sequence number of their first entry; a segment can be deleted
+ * once a database snapshot covers all of its entries. Each entry is {@code length, seq, kind,
+ * reference, count, count x (from, to, amount), crc32}, and replay stops at the first torn or
+ * corrupt entry. Commit and abort markers carry no movements and reference the pending entry they
+ * settle.
+ */
+class LedgerWriteAheadLog implements AutoCloseable {
+  private static final String SEGMENT_PREFIX = "wal-";
+  private static final String SEGMENT_SUFFIX = ".log";
+  private static final int MOVEMENT_BYTES = 3 * Long.BYTES;
+  private static final int BODY_HEADER_BYTES =
+      Long.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int HEADER_BYTES = Integer.BYTES + BODY_HEADER_BYTES;
+
+  private final Path directory;
+  private FileChannel channel;
+  private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+
+  LedgerWriteAheadLog(Path directory) {
+    this.directory = directory;
+  }
+
+  List<Entry> readAll() throws IOException {
+    Files.createDirectories(directory);
+    List<Entry> entries = new ArrayList<>();
+    for (Path segment : segments()) {
+      ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(segment));
+      while (content.remaining() >= HEADER_BYTES) {
+        int length = content.getInt();
+        if (length < BODY_HEADER_BYTES || length + Integer.BYTES > content.remaining()) {
+          break;
+        }
+        byte[] body = new byte[length];
+        content.get(body);
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        if ((int) crc.getValue() != content.getInt()) {
+          break;
+        }
+        Entry entry = Entry.decode(ByteBuffer.wrap(body));
+        if (entry == null) {
+          break;
+        }
+        entries.add(entry);
+      }
+    }
+    return entries;
+  }
+
+  void open(long startSequence) throws IOException {
+    Files.createDirectories(directory);
+    channel =
+        FileChannel.open(
+            segmentPath(startSequence),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  void append(Entry entry) {
+    int length = BODY_HEADER_BYTES + entry.movements.size() * MOVEMENT_BYTES;
+    ensureCapacity(Integer.BYTES + length + Integer.BYTES);
+    buffer.putInt(length);
+    int bodyStart = buffer.position();
+    entry.encode(buffer);
+    CRC32 crc = new CRC32();
+    crc.update(buffer.array(), bodyStart, length);
+    buffer.putInt((int) crc.getValue());
+  }
+
+  /** Writes everything appended since the last call and forces it to disk. */
+  void sync() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+    channel.force(false);
+  }
+
+  /** Discards entries appended since the last {@link #sync()}. */
+  void discard() {
+    buffer.clear();
+  }
+
+  void roll(long startSequence) throws IOException {
+    sync();
+    channel.close();
+    open(startSequence);
+  }
+
+  /** Deletes the segments all of whose entries precede {@code sequence}. */
+  void deleteSegmentsBefore(long sequence) {
+    try {
+      List<Path> segments = segments();
+      for (int i = 0; i + 1 < segments.size() && sequenceOf(segments.get(i + 1)) <= sequence; i++) {
+        Files.deleteIfExists(segments.get(i));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void deleteAllSegments() {
+    try {
+      for (Path segment : segments()) {
+        Files.deleteIfExists(segment);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null && channel.isOpen()) {
+      sync();
+      channel.close();
+    }
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (buffer.remaining() < bytes) {
+      ByteBuffer larger =
+          ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+      buffer.flip();
+      larger.put(buffer);
+      buffer = larger;
+    }
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+          .filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+          .sorted(Comparator.comparingLong(LedgerWriteAheadLog::sequenceOf))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private Path segmentPath(long startSequence) {
+    return directory.resolve(
+        String.format("%s%020d%s", SEGMENT_PREFIX, startSequence, SEGMENT_SUFFIX));
+  }
+
+  private static long sequenceOf(Path segment) {
+    String name = segment.getFileName().toString();
+    return Long.parseLong(
+        name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+  }
+
+  static final class Entry {
+    static final long NO_REFERENCE = -1;
+
+    final long sequence;
+    final Kind kind;
+    final long reference;
+    final List<Movement> movements;
+
+    Entry(long sequence, Kind kind, long reference, List<Movement> movements) {
+      this.sequence = sequence;
+      this.kind = kind;
+      this.reference = reference;
+      this.movements = movements;
+    }
+
+    static Entry of(long sequence, Kind kind, List<Movement> movements) {
+      return new Entry(sequence, kind, NO_REFERENCE, movements);
+    }
+
+    static Entry marker(long sequence, Kind kind, long reference) {
+      return new Entry(sequence, kind, reference, List.of());
+    }
+
+    private void encode(ByteBuffer target) {
+      target.putLong(sequence);
+      target.putInt(kind.code);
+      target.putLong(reference);
+      target.putInt(movements.size());
+      for (Movement movement : movements) {
+        target.putLong(movement.fromAccountId);
+        target.putLong(movement.toAccountId);
+        target.putLong(movement.amount);
+      }
+    }
+
+    private static Entry decode(ByteBuffer source) {
+      long sequence = source.getLong();
+      Kind kind = Kind.of(source.getInt());
+      if (kind == null) {
+        return null;
+      }
+      long reference = source.getLong();
+      int count = source.getInt();
+      List<Movement> movements = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        movements.add(new Movement(source.getLong(), source.getLong(), source.getLong()));
+      }
+      return new Entry(sequence, kind, reference, movements);
+    }
+  }
+
+  enum Kind {
+    /** Movements applied outside a database transaction; final as soon as they are logged. */
+    COMMITTED(1),
+    /** Movements of a database transaction that has not completed yet. */
+    PENDING(2),
+    /** The referenced pending entry's transaction committed. */
+    COMMIT(3),
+    /** The referenced pending entry's transaction rolled back. */
+    ABORT(4);
+
+    private final int code;
+
+    Kind(int code) {
+      this.code = code;
+    }
+
+    /** Returns {@code null} for an unknown code, which readers treat like a corrupt entry. */
+    private static Kind of(int code) {
+      for (Kind kind : values()) {
+        if (kind.code == code) {
+          return kind;
+        }
+      }
+      return null;
+    }
+  }
+
+  /** Moves {@code amount} between two accounts; {@link #EXTERNAL} stands for cash in or out. */
+  static final class Movement {
+    static final long EXTERNAL = -1;
+
+    final long fromAccountId;
+    final long toAccountId;
+    final long amount;
+
+    Movement(long fromAccountId, long toAccountId, long amount) {
+      this.fromAccountId = fromAccountId;
+      this.toAccountId = toAccountId;
+      this.amount = amount;
+    }
+  }
+}
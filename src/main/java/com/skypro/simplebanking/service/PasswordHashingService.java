@@ -0,0 +1,86 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.exception.PasswordHashingBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs BCrypt for new passwords on a pool with one thread per CPU and a bounded queue of {@code
+ * app.password-hashing.queue-capacity}. Hashing is CPU-bound, so more threads would only add
+ * contention; when the queue is full the request is rejected right away instead of piling up
+ * request threads behind it.
+ */
+@Service
+public class PasswordHashingService {
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final Timer hashTimer;
+
+  public PasswordHashingService(
+      PasswordEncoder passwordEncoder,
+      MeterRegistry meterRegistry,
+      @Value("${app.password-hashing.queue-capacity}") int queueCapacity) {
+    this.passwordEncoder = passwordEncoder;
+    int threads = Runtime.getRuntime().availableProcessors();
+    BlockingQueue<Runnable> queue = new ArrayBlockingQueue<>(queueCapacity);
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            0,
+            TimeUnit.MILLISECONDS,
+            queue,
+            task -> {
+              Thread thread = new Thread(task, "password-hash-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+    this.hashTimer =
+        Timer.builder("banking.password-hashing.latency")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+    meterRegistry.gaugeCollectionSize("banking.password-hashing.queue-depth", Tags.empty(), queue);
+  }
+
+  /** Hashes {@code password}, blocking the caller until a pool thread has done it. */
+  public String hash(String password) {
+    Future<String> hash;
+    try {
+      hash = executor.submit(() -> hashTimer.recordCallable(() -> passwordEncoder.encode(password)));
+    } catch (RejectedExecutionException e) {
+      throw new PasswordHashingBusyException();
+    }
+    try {
+      return hash.get();
+    } catch (InterruptedException e) {
+      hash.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException(e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+}
@@ -0,0 +1,95 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.TokenDTO;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+/**
+ * Issues and verifies short-lived bearer tokens of the form {@code payload.signature}, where the
+ * payload is {@code id:admin:expiresAt:username} and the signature is its HMAC-SHA256. Verification
+ * is purely local, so token requests never touch the database.
+ */
+@Service
+public class TokenService {
+  private static final String SIGNATURE_ALGORITHM = "HmacSHA256";
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final SecretKeySpec secret;
+  private final Duration ttl;
+  private final Clock clock;
+
+  public TokenService(
+      @Value("${app.security.token-secret}") String secret,
+      @Value("${app.security.token-ttl}") Duration ttl) {
+    this.secret =
+        new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SIGNATURE_ALGORITHM);
+    this.ttl = ttl;
+    this.clock = Clock.systemUTC();
+  }
+
+  public TokenDTO issue(BankingUserDetails userDetails) {
+    Instant expiresAt = clock.instant().plus(ttl);
+    String payload =
+        userDetails.getId()
+            + ":"
+            + isAdmin(userDetails)
+            + ":"
+            + expiresAt.getEpochSecond()
+            + ":"
+            + userDetails.getUsername();
+    byte[] payloadBytes = payload.getBytes(StandardCharsets.UTF_8);
+    String token =
+        ENCODER.encodeToString(payloadBytes) + "." + ENCODER.encodeToString(sign(payloadBytes));
+    return new TokenDTO(token, expiresAt);
+  }
+
+  public Optional<BankingUserDetails> verify(String token) {
+    int separator = token.indexOf('.');
+    if (separator < 0) {
+      return Optional.empty();
+    }
+    try {
+      byte[] payloadBytes = DECODER.decode(token.substring(0, separator));
+      byte[] signature = DECODER.decode(token.substring(separator + 1));
+      if (!MessageDigest.isEqual(signature, sign(payloadBytes))) {
+        return Optional.empty();
+      }
+      String[] parts = new String(payloadBytes, StandardCharsets.UTF_8).split(":", 4);
+      if (parts.length != 4 || clock.instant().getEpochSecond() >= Long.parseLong(parts[2])) {
+        return Optional.empty();
+      }
+      return Optional.of(
+          new BankingUserDetails(
+              Long.parseLong(parts[0]), parts[3], "****", Boolean.parseBoolean(parts[1])));
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+  }
+
+  private static boolean isAdmin(BankingUserDetails userDetails) {
+    return userDetails.getAuthorities().stream()
+        .anyMatch(authority -> "ROLE_ADMIN".equals(authority.getAuthority()));
+  }
+
+  private byte[] sign(byte[] payload) {
+    try {
+      Mac mac = Mac.getInstance(SIGNATURE_ALGORITHM);
+      mac.init(secret);
+      return mac.doFinal(payload);
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -1,27 +1,254 @@
 package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.TransferRequest;
+import com.skypro.simplebanking.dto.TransferResultDTO;
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.AccountSlot;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.BatchTooLargeException;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.exception.WrongCurrencyException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.transaction.interceptor.TransactionAspectSupport;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 public class TransferService {
-  private final AccountService accountService;
+  private final AccountRepository accountRepository;
+  private final AccountSlotService accountSlotService;
+  private final JournalService journalService;
+  private final AccountReadCache accountReadCache;
+  private final Optional<LedgerEngine> ledgerEngine;
+  private final int batchMaxSize;
+  private final Map<AccountCurrency, DistributionSummary> transferAmounts =
+      new EnumMap<>(AccountCurrency.class);
 
-  public TransferService(AccountService accountService) {
-    this.accountService = accountService;
+  public TransferService(
+      AccountRepository accountRepository,
+      AccountSlotService accountSlotService,
+      JournalService journalService,
+      AccountReadCache accountReadCache,
+      Optional<LedgerEngine> ledgerEngine,
+      MeterRegistry meterRegistry,
+      @Value("${app.transfer.batch-max-size}") int batchMaxSize) {
+    this.accountRepository = accountRepository;
+    this.accountSlotService = accountSlotService;
+    this.journalService = journalService;
+    this.accountReadCache = accountReadCache;
+    this.ledgerEngine = ledgerEngine;
+    this.batchMaxSize = batchMaxSize;
+    for (AccountCurrency currency : AccountCurrency.values()) {
+      transferAmounts.put(
+          currency,
+          DistributionSummary.builder("banking.transfer.amount")
+              .tag("currency", currency.name())
+              .publishPercentileHistogram()
+              .register(meterRegistry));
+    }
   }
 
   @Transactional
-  public void transfer(long id, @RequestBody TransferRequest transferRequest) {
-    accountService.validateCurrency(
-        transferRequest.getFromAccountId(), transferRequest.getToAccountId());
-    accountService.withdrawFromAccount(
-        id, transferRequest.getFromAccountId(), transferRequest.getAmount());
-    accountService.depositToAccount(
-        transferRequest.getToUserId(),
+  public void transfer(long id, TransferRequest transferRequest) {
+    if (ledgerEngine.isPresent()) {
+      ledgerEngine.get().transfer(id, transferRequest);
+      record(id, transferRequest);
+    } else {
+      Map<Long, Account> accounts = lockAccounts(List.of(transferRequest));
+      record(
+          id,
+          transferRequest,
+          apply(accounts, accountSlotService.lockSlots(accounts.values()), id, transferRequest));
+    }
+  }
+
+  /**
+   * Applies a list of transfers of one user in a single transaction. All referenced accounts are
+   * locked up front by one ordered query, the transfers are applied to the managed entities in
+   * memory and the resulting updates and journal rows are flushed as JDBC batches on commit. In
+   * atomic mode any failed item rolls back the whole batch; otherwise failed items are skipped and
+   * the rest commit.
+   */
+  @Transactional
+  public List<TransferResultDTO> transferBatch(
+      long id, List<TransferRequest> transferRequests, boolean atomic) {
+    if (transferRequests.size() > batchMaxSize) {
+      throw new BatchTooLargeException(
+          "Batch should contain at most " + batchMaxSize + " transfers");
+    }
+    List<Long> userIds = Collections.nCopies(transferRequests.size(), id);
+    if (ledgerEngine.isPresent()) {
+      return record(
+          userIds,
+          transferRequests,
+          ledgerEngine.get().transferAll(userIds, transferRequests, atomic));
+    }
+    List<TransferResultDTO> results = applyEach(userIds, transferRequests);
+    boolean failed =
+        results.stream().anyMatch(result -> result.getStatus() == TransferResultDTO.Status.FAILED);
+    if (atomic && failed) {
+      TransactionAspectSupport.currentTransactionStatus().setRollbackOnly();
+      return results.stream()
+          .map(
+              result ->
+                  result.getStatus() == TransferResultDTO.Status.COMPLETED
+                      ? new TransferResultDTO(
+                          result.getIndex(), TransferResultDTO.Status.ROLLED_BACK, null)
+                      : result)
+          .collect(Collectors.toList());
+    }
+    return results;
+  }
+
+  /**
+   * Applies transfers submitted by different users in one transaction, each independently of the
+   * others, so that many queued transfers share a single commit. {@code userIds.get(i)} is the
+   * owner of the source account of request i.
+   */
+  @Transactional
+  public List<TransferResultDTO> transferGroup(
+      List<Long> userIds, List<TransferRequest> transferRequests) {
+    if (ledgerEngine.isPresent()) {
+      return record(
+          userIds, transferRequests, ledgerEngine.get().transferAll(userIds, transferRequests, false));
+    }
+    return applyEach(userIds, transferRequests);
+  }
+
+  private List<TransferResultDTO> applyEach(
+      List<Long> userIds, List<TransferRequest> transferRequests) {
+    Map<Long, Account> accounts = lockAccounts(transferRequests);
+    Map<Long, List<AccountSlot>> slots = accountSlotService.lockSlots(accounts.values());
+    List<TransferResultDTO> results = new ArrayList<>(transferRequests.size());
+    for (int i = 0; i < transferRequests.size(); i++) {
+      try {
+        AccountCurrency currency =
+            apply(accounts, slots, userIds.get(i), transferRequests.get(i));
+        record(userIds.get(i), transferRequests.get(i), currency);
+        results.add(TransferResultDTO.completed(i));
+      } catch (AccountNotFoundException
+          | InvalidAmountException
+          | WrongCurrencyException
+          | InsufficientFundsException e) {
+        results.add(TransferResultDTO.failed(i, describe(e)));
+      }
+    }
+    return results;
+  }
+
+  private List<TransferResultDTO> record(
+      List<Long> userIds, List<TransferRequest> transferRequests, List<TransferResultDTO> results) {
+    for (TransferResultDTO result : results) {
+      if (result.getStatus() == TransferResultDTO.Status.COMPLETED) {
+        record(userIds.get(result.getIndex()), transferRequests.get(result.getIndex()));
+      }
+    }
+    return results;
+  }
+
+  private void record(long userId, TransferRequest transferRequest) {
+    record(
+        userId,
+        transferRequest,
+        ledgerEngine.get().currency(transferRequest.getFromAccountId()).orElseThrow());
+  }
+
+  private void record(long userId, TransferRequest transferRequest, AccountCurrency currency) {
+    journalService.recordTransfer(
+        transferRequest.getFromAccountId(),
         transferRequest.getToAccountId(),
         transferRequest.getAmount());
+    accountReadCache.evictAfterCompletion(userId, transferRequest.getFromAccountId());
+    accountReadCache.evictAfterCompletion(
+        transferRequest.getToUserId(), transferRequest.getToAccountId());
+    DistributionSummary amounts = transferAmounts.get(currency);
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            amounts.record(transferRequest.getAmount());
+          }
+        });
+  }
+
+  /** Ids of all accounts touched by the transfers, in ascending order. */
+  public static Set<Long> accountIds(List<TransferRequest> transferRequests) {
+    Set<Long> accountIds = new TreeSet<>();
+    for (TransferRequest transferRequest : transferRequests) {
+      accountIds.add(transferRequest.getFromAccountId());
+      accountIds.add(transferRequest.getToAccountId());
+    }
+    return accountIds;
+  }
+
+  private Map<Long, Account> lockAccounts(List<TransferRequest> transferRequests) {
+    return accountRepository.findAllByIdForUpdate(accountIds(transferRequests)).stream()
+        .collect(Collectors.toMap(Account::getId, Function.identity()));
+  }
+
+  /** Applies the transfer to the locked entities and returns the currency it was made in. */
+  private static AccountCurrency apply(
+      Map<Long, Account> accounts,
+      Map<Long, List<AccountSlot>> slots,
+      long id,
+      TransferRequest transferRequest) {
+    if (transferRequest.getAmount() < 0) {
+      throw new InvalidAmountException();
+    }
+    Account source = getOwnedAccount(accounts, id, transferRequest.getFromAccountId());
+    Account destination =
+        getOwnedAccount(accounts, transferRequest.getToUserId(), transferRequest.getToAccountId());
+    if (!source.getAccountCurrency().equals(destination.getAccountCurrency())) {
+      throw new WrongCurrencyException();
+    }
+    List<AccountSlot> sourceSlots = slots.getOrDefault(source.getId(), List.of());
+    if (AccountSlotService.available(source, sourceSlots) < transferRequest.getAmount()) {
+      throw new InsufficientFundsException(
+          "Cannot withdraw "
+              + transferRequest.getAmount()
+              + " "
+              + source.getAccountCurrency().name());
+    }
+    AccountSlotService.withdraw(source, sourceSlots, transferRequest.getAmount());
+    destination.setAmount(destination.getAmount() + transferRequest.getAmount());
+    return source.getAccountCurrency();
+  }
+
+  private static Account getOwnedAccount(Map<Long, Account> accounts, long userId, long accountId) {
+    Account account = accounts.get(accountId);
+    if (account == null || account.getUser().getId() != userId) {
+      throw new AccountNotFoundException();
+    }
+    return account;
+  }
+
+  static String describe(RuntimeException exception) {
+    if (exception instanceof AccountNotFoundException) {
+      return "Account not found";
+    }
+    if (exception instanceof InvalidAmountException) {
+      return "Amount should be more than 0";
+    }
+    if (exception instanceof WrongCurrencyException) {
+      return "Account currencies should be same";
+    }
+    return exception.getMessage();
   }
 }
@@ -0,0 +1,242 @@
+package com.skypro.simplebanking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.dto.CreateUserRequest;
+import com.skypro.simplebanking.dto.ImportResultDTO;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.UserRepository;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import javax.validation.ConstraintViolation;
+import javax.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates users with their default accounts from a JSON-lines or CSV stream. Rows are processed in
+ * chunks of {@code app.user-import.chunk-size}: passwords of a chunk are hashed in parallel on a
+ * fixed pool, then the chunk is inserted in one transaction, where pooled-lo sequence allocation
+ * and Hibernate JDBC batching turn it into a handful of batched statements. Each row is checked
+ * against the {@link CreateUserRequest.ImportRow} constraints of {@link CreateUserRequest}. A
+ * result line is written for every input row as soon as its chunk is done.
+ */
+@Service
+public class UserImportService {
+  private static final String CSV_HEADER = "username,password";
+
+  private final UserRepository userRepository;
+  private final AccountService accountService;
+  private final PasswordEncoder passwordEncoder;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+  private final int chunkSize;
+  private final ExecutorService hashingPool;
+
+  public UserImportService(
+      UserRepository userRepository,
+      AccountService accountService,
+      PasswordEncoder passwordEncoder,
+      TransactionTemplate transactionTemplate,
+      ObjectMapper objectMapper,
+      Validator validator,
+      @Value("${app.user-import.chunk-size}") int chunkSize,
+      @Value("${app.user-import.hash-threads}") int hashThreads) {
+    this.userRepository = userRepository;
+    this.accountService = accountService;
+    this.passwordEncoder = passwordEncoder;
+    this.transactionTemplate = transactionTemplate;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+    this.chunkSize = chunkSize;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.hashingPool =
+        Executors.newFixedThreadPool(
+            hashThreads,
+            task -> {
+              Thread thread =
+                  new Thread(task, "user-import-hash-" + threadNumber.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  public void importUsers(InputStream in, Format format, OutputStream out) throws IOException {
+    BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    List<Row> chunk = new ArrayList<>(chunkSize);
+    long lineNumber = 0;
+    String line;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      if (line.isBlank()
+          || (format == Format.CSV && lineNumber == 1 && line.equalsIgnoreCase(CSV_HEADER))) {
+        continue;
+      }
+      chunk.add(parse(lineNumber, line, format));
+      if (chunk.size() == chunkSize) {
+        write(importChunk(chunk), out);
+        chunk.clear();
+      }
+    }
+    if (!chunk.isEmpty()) {
+      write(importChunk(chunk), out);
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    hashingPool.shutdownNow();
+  }
+
+  private Row parse(long lineNumber, String line, Format format) {
+    CreateUserRequest request;
+    if (format == Format.CSV) {
+      int comma = line.indexOf(',');
+      request = new CreateUserRequest();
+      if (comma >= 0) {
+        request.setUsername(line.substring(0, comma).trim());
+        request.setPassword(line.substring(comma + 1));
+      }
+    } else {
+      try {
+        request = objectMapper.readValue(line, CreateUserRequest.class);
+      } catch (JsonProcessingException e) {
+        return Row.invalid(lineNumber, "Malformed JSON");
+      }
+    }
+    Set<ConstraintViolation<CreateUserRequest>> violations =
+        validator.validate(request, CreateUserRequest.ImportRow.class);
+    if (!violations.isEmpty()) {
+      return Row.invalid(lineNumber, describe(violations));
+    }
+    return new Row(lineNumber, request.getUsername(), request.getPassword());
+  }
+
+  /** Joins the violations as {@code "password: must not be blank; username: ..."}. */
+  private static String describe(Set<ConstraintViolation<CreateUserRequest>> violations) {
+    Set<String> messages = new TreeSet<>();
+    for (ConstraintViolation<CreateUserRequest> violation : violations) {
+      messages.add(violation.getPropertyPath() + ": " + violation.getMessage());
+    }
+    return String.join("; ", messages);
+  }
+
+  private List<ImportResultDTO> importChunk(List<Row> chunk) {
+    Set<String> seen = new HashSet<>();
+    List<Row> candidates = new ArrayList<>(chunk.size());
+    for (Row row : chunk) {
+      if (row.error == null && !seen.add(row.username)) {
+        row.error = "Duplicate username in import";
+      } else if (row.error == null) {
+        candidates.add(row);
+      }
+    }
+    Set<String> existing =
+        candidates.isEmpty()
+            ? Set.of()
+            : userRepository.findExistingUsernames(
+                candidates.stream().map(row -> row.username).collect(Collectors.toList()));
+    List<Row> accepted = new ArrayList<>(candidates.size());
+    List<CompletableFuture<Void>> hashes = new ArrayList<>(candidates.size());
+    for (Row row : candidates) {
+      if (existing.contains(row.username)) {
+        row.error = "User already exists";
+        continue;
+      }
+      accepted.add(row);
+      hashes.add(
+          CompletableFuture.runAsync(
+              () -> row.passwordHash = passwordEncoder.encode(row.password), hashingPool));
+    }
+    CompletableFuture.allOf(hashes.toArray(CompletableFuture[]::new)).join();
+    try {
+      insert(accepted);
+    } catch (DataIntegrityViolationException e) {
+      // Someone else created one of the users meanwhile; isolate it by inserting row by row.
+      for (Row row : accepted) {
+        try {
+          insert(List.of(row));
+        } catch (DataIntegrityViolationException rowFailure) {
+          row.error = "User already exists";
+        }
+      }
+    }
+    return chunk.stream().map(Row::toResult).collect(Collectors.toList());
+  }
+
+  private void insert(List<Row> rows) {
+    if (rows.isEmpty()) {
+      return;
+    }
+    transactionTemplate.executeWithoutResult(
+        status -> {
+          for (Row row : rows) {
+            User user = new User();
+            user.setUsername(row.username);
+            user.setPassword(row.passwordHash);
+            userRepository.save(user);
+            accountService.createDefaultAccounts(user);
+            row.userId = user.getId();
+          }
+        });
+  }
+
+  private void write(List<ImportResultDTO> results, OutputStream out) throws IOException {
+    for (ImportResultDTO result : results) {
+      out.write(objectMapper.writeValueAsBytes(result));
+      out.write('\n');
+    }
+    out.flush();
+  }
+
+  public enum Format {
+    JSON_LINES,
+    CSV
+  }
+
+  private static final class Row {
+    private final long line;
+    private final String username;
+    private final String password;
+    private volatile String passwordHash;
+    private Long userId;
+    private String error;
+
+    private Row(long line, String username, String password) {
+      this.line = line;
+      this.username = username;
+      this.password = password;
+    }
+
+    private static Row invalid(long line, String error) {
+      Row row = new Row(line, null, null);
+      row.error = error;
+      return row;
+    }
+
+    private ImportResultDTO toResult() {
+      return error == null
+          ? ImportResultDTO.created(line, userId)
+          : ImportResultDTO.failed(line, error);
+    }
+  }
+}
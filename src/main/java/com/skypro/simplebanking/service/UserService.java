@@ -1,64 +1,193 @@
 package com.skypro.simplebanking.service;
 
 import com.skypro.simplebanking.dto.BankingUserDetails;
+import com.skypro.simplebanking.dto.ListAccountDTO;
 import com.skypro.simplebanking.dto.ListUserDTO;
+import com.skypro.simplebanking.dto.ListUserPage;
 import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.dto.UserSummaryView;
 import com.skypro.simplebanking.entity.User;
 import com.skypro.simplebanking.exception.UserAlreadyExistsException;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 @Service
 public class UserService implements UserDetailsService {
   private final UserRepository userRepository;
   private final AccountService accountService;
-  private final PasswordEncoder passwordEncoder;
+  private final PasswordHashingService passwordHashingService;
+  private final UsernameFilter usernameFilter;
+  private final AccountReadCache accountReadCache;
+  private final int listMaxPageSize;
+  private final EntityManager entityManager;
+  private final TransactionTemplate transaction;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ObjectWriter exportWriter;
+  private final int exportClearInterval;
 
   public UserService(
       UserRepository userRepository,
       AccountService accountService,
-      PasswordEncoder passwordEncoder) {
+      PasswordHashingService passwordHashingService,
+      UsernameFilter usernameFilter,
+      AccountReadCache accountReadCache,
+      @Value("${app.user-list.max-page-size}") int listMaxPageSize,
+      EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      ObjectMapper objectMapper,
+      @Value("${app.user-export.clear-interval}") int exportClearInterval) {
     this.userRepository = userRepository;
     this.accountService = accountService;
-    this.passwordEncoder = passwordEncoder;
+    this.passwordHashingService = passwordHashingService;
+    this.usernameFilter = usernameFilter;
+    this.accountReadCache = accountReadCache;
+    this.listMaxPageSize = listMaxPageSize;
+    this.entityManager = entityManager;
+    this.transaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.exportWriter =
+        objectMapper
+            .writerFor(ListUserDTO.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    this.exportClearInterval = exportClearInterval;
   }
 
   @Override
-  @Transactional(readOnly = true)
   public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+    if (!usernameFilter.mightContain(username)) {
+      throw new UsernameNotFoundException("User not found");
+    }
     return userRepository
         .findByUsername(username)
         .map(BankingUserDetails::from)
         .orElseThrow(() -> new UsernameNotFoundException("User not found"));
   }
 
-  @Transactional
+  /**
+   * Hashes the password on {@link PasswordHashingService} before the transaction starts, so no
+   * connection is held while BCrypt runs. Uniqueness is enforced by the unique index on {@code
+   * users.username}; the lookup up front only spares the hash for names that are likely taken.
+   */
   public UserDTO createUser(String username, String password) {
-    Optional<User> existingUser = userRepository.findByUsername(username);
-    if (existingUser.isPresent()) {
+    if (usernameFilter.mightContain(username) && userRepository.existsByUsername(username)) {
+      throw new UserAlreadyExistsException();
+    }
+    String passwordHash = passwordHashingService.hash(password);
+    try {
+      return transaction.execute(
+          status -> {
+            User user = new User();
+            user.setUsername(username);
+            user.setPassword(passwordHash);
+            userRepository.saveAndFlush(user);
+            accountService.createDefaultAccounts(user);
+            accountReadCache.evictProfileAfterCompletion(user.getId());
+            return UserDTO.from(user);
+          });
+    } catch (DataIntegrityViolationException e) {
       throw new UserAlreadyExistsException();
     }
-    User user = new User();
-    user.setUsername(username);
-    user.setPassword(passwordEncoder.encode(password));
-    userRepository.save(user);
-    accountService.createDefaultAccounts(user);
-    return UserDTO.from(user);
   }
-  @Transactional(readOnly = true)
+
+  /** Served from {@link AccountReadCache}; a miss loads the profile in a read-only transaction. */
   public UserDTO getUser(long id) {
-    return userRepository.findById(id).map(UserDTO::from).orElseThrow();
+    return accountReadCache.getProfile(
+        id,
+        () ->
+            readOnlyTransaction.execute(
+                status ->
+                    userRepository
+                        .findWithAccountsById(id)
+                        .map(
+                            user ->
+                                new UserDTO(
+                                    user.getId(),
+                                    user.getUsername(),
+                                    user.getAccounts().stream()
+                                        .map(accountService::toDTO)
+                                        .collect(Collectors.toList())))
+                        .orElseThrow()));
   }
+  /**
+   * Returns up to {@code limit} users with an id greater than {@code after}, in id order, and the
+   * cursor of the next page if there is one. {@code limit} is capped by {@code
+   * app.user-list.max-page-size}; one extra row is read to tell whether another page exists. The
+   * page costs two statements whatever its size: one for the users and one for their accounts.
+   */
   @Transactional(readOnly = true)
-  public List<ListUserDTO> listUsers() {
-    return userRepository.findAll().stream().map(ListUserDTO::from).collect(Collectors.toList());
+  public ListUserPage listUsers(long after, int limit) {
+    int pageSize = Math.max(1, Math.min(limit, listMaxPageSize));
+    List<UserSummaryView> users =
+        userRepository.findByIdGreaterThanOrderByIdAsc(after, PageRequest.ofSize(pageSize + 1));
+    Long nextCursor = null;
+    if (users.size() > pageSize) {
+      users = users.subList(0, pageSize);
+      nextCursor = users.get(pageSize - 1).getId();
+    }
+    Map<Long, List<ListAccountDTO>> accounts =
+        accountService.listAccounts(
+            users.stream().map(UserSummaryView::getId).collect(Collectors.toList()));
+    return new ListUserPage(
+        users.stream()
+            .map(
+                user ->
+                    new ListUserDTO(
+                        user.getId(),
+                        user.getUsername(),
+                        accounts.getOrDefault(user.getId(), List.of())))
+            .collect(Collectors.toList()),
+        nextCursor);
+  }
+
+  /**
+   * Writes every user with their accounts to {@code out} as one JSON array, without holding more
+   * than {@code app.user-export.clear-interval} users in memory. Users are read through a cursor
+   * in a read-only transaction. The persistence context is cleared and the output flushed after
+   * each interval, so the client starts receiving data while the query is still running.
+   */
+  public void exportUsers(OutputStream out) {
+    readOnlyTransaction.executeWithoutResult(
+        status -> {
+          try (Stream<User> users = userRepository.streamAllWithAccounts()) {
+            // The servlet container owns the response stream, so the generator must not close it.
+            JsonGenerator generator = exportWriter.getFactory().createGenerator(out);
+            generator.writeStartArray();
+            generator.flush();
+            int written = 0;
+            for (User user : (Iterable<User>) users::iterator) {
+              exportWriter.writeValue(generator, ListUserDTO.from(user));
+              if (++written % exportClearInterval == 0) {
+                entityManager.clear();
+                generator.flush();
+              }
+            }
+            generator.writeEndArray();
+            generator.flush();
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        });
   }
 }
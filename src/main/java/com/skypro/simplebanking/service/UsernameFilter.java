@@ -0,0 +1,186 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+import javax.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Bloom filter over all usernames. A negative answer means the username certainly does not exist,
+ * so sign-in and sign-up can skip the user lookup; a positive answer still has to be checked in
+ * the database. The filter is built from {@code users} on start, before requests are accepted,
+ * and a Hibernate post-commit insert listener adds every user this process inserts, whichever
+ * code path saved it. The filter is rebuilt every {@code app.username-filter.rebuild-interval},
+ * which picks up users inserted by another node or by SQL and drops deleted ones; until then such
+ * users cannot sign in.
+ *
+ * <p>The filter is therefore for single-node deployments only and is off by default, which makes
+ * every answer positive. Enable it with {@code app.username-filter.enabled=true} only where this
+ * process is the one inserting users.
+ */
+@Service
+public class UsernameFilter implements SmartInitializingSingleton, PostCommitInsertEventListener {
+  private final UserRepository userRepository;
+  private final EntityManagerFactory entityManagerFactory;
+  private final TransactionTemplate readOnlyTransaction;
+  private final boolean enabled;
+  private final int wordCount;
+  private final long bitCount;
+  private final int hashCount;
+  private final Counter negatives;
+
+  /** Filter in use, {@code null} until the first build. */
+  private volatile AtomicLongArray words;
+  /** Filter being built, which receives inserts alongside {@link #words} until it replaces it. */
+  private volatile AtomicLongArray rebuilding;
+
+  public UsernameFilter(
+      UserRepository userRepository,
+      EntityManagerFactory entityManagerFactory,
+      PlatformTransactionManager transactionManager,
+      MeterRegistry meterRegistry,
+      @Value("${app.username-filter.enabled}") boolean enabled,
+      @Value("${app.username-filter.expected-users}") long expectedUsers,
+      @Value("${app.username-filter.false-positive-rate}") double falsePositiveRate) {
+    this.userRepository = userRepository;
+    this.entityManagerFactory = entityManagerFactory;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.enabled = enabled;
+    double ln2 = Math.log(2);
+    long optimalBits =
+        (long) Math.ceil(-expectedUsers * Math.log(falsePositiveRate) / (ln2 * ln2));
+    this.wordCount = (int) ((optimalBits + Long.SIZE - 1) / Long.SIZE);
+    this.bitCount = (long) wordCount * Long.SIZE;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedUsers * ln2));
+    this.negatives = meterRegistry.counter("banking.username-filter.negatives");
+  }
+
+  @Override
+  public void afterSingletonsInstantiated() {
+    if (!enabled) {
+      return;
+    }
+    entityManagerFactory
+        .unwrap(SessionFactoryImplementor.class)
+        .getServiceRegistry()
+        .getService(EventListenerRegistry.class)
+        .appendListeners(EventType.POST_COMMIT_INSERT, this);
+    rebuild();
+  }
+
+  /**
+   * Builds a fresh filter from {@code users} and swaps it in. Inserts are added after their commit,
+   * so each one is either visible to the query or made while the fresh filter receives inserts.
+   */
+  @Scheduled(
+      initialDelayString = "${app.username-filter.rebuild-interval}",
+      fixedDelayString = "${app.username-filter.rebuild-interval}")
+  public void rebuild() {
+    if (!enabled) {
+      return;
+    }
+    AtomicLongArray fresh = new AtomicLongArray(wordCount);
+    rebuilding = fresh;
+    try {
+      readOnlyTransaction.executeWithoutResult(
+          status -> {
+            try (Stream<String> usernames = userRepository.streamAllUsernames()) {
+              usernames.forEach(username -> add(fresh, hash(username)));
+            }
+          });
+      words = fresh;
+    } finally {
+      rebuilding = null;
+    }
+  }
+
+  /** Returns {@code false} only for usernames that certainly do not exist. */
+  public boolean mightContain(String username) {
+    AtomicLongArray current = words;
+    if (current == null) {
+      return true;
+    }
+    long hash = hash(username);
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(hash, i);
+      if ((current.get((int) (bit / Long.SIZE)) & (1L << bit)) == 0) {
+        negatives.increment();
+        return false;
+      }
+    }
+    return true;
+  }
+
+  public void add(String username) {
+    long hash = hash(username);
+    // Read the filter being built first: once it is null, words already holds the fresh filter.
+    AtomicLongArray next = rebuilding;
+    AtomicLongArray current = words;
+    if (current != null) {
+      add(current, hash);
+    }
+    if (next != null) {
+      add(next, hash);
+    }
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof User user) {
+      add(user.getUsername());
+    }
+  }
+
+  @Override
+  public void onPostInsertCommitFailed(PostInsertEvent event) {}
+
+  @Override
+  public boolean requiresPostCommitHanding(EntityPersister persister) {
+    return true;
+  }
+
+  private void add(AtomicLongArray filter, long hash) {
+    for (int i = 1; i <= hashCount; i++) {
+      long bit = index(hash, i);
+      filter.getAndAccumulate((int) (bit / Long.SIZE), 1L << bit, (word, mask) -> word | mask);
+    }
+  }
+
+  /** Kirsch-Mitzenmacher double hashing: the i-th index is {@code h1 + i * h2}. */
+  private long index(long hash, int i) {
+    long combined = (int) hash + (long) i * (int) (hash >>> 32);
+    return Math.floorMod(combined, bitCount);
+  }
+
+  /** 64-bit FNV-1a of the UTF-8 bytes, mixed with the MurmurHash3 finalizer. */
+  private static long hash(String username) {
+    long hash = 0xcbf29ce484222325L;
+    for (byte b : username.getBytes(StandardCharsets.UTF_8)) {
+      hash ^= b & 0xff;
+      hash *= 0x100000001b3L;
+    }
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
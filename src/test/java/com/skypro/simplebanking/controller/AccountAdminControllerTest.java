@@ -0,0 +1,145 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.AccountSlotRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+public class AccountAdminControllerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private AccountSlotRepository accountSlotRepository;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Value("${app.security.admin-token}")
+    private String adminToken;
+
+    private Account account;
+
+    @AfterEach
+    public void cleanData(){
+        accountSlotRepository.deleteAll();
+        accountRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @BeforeEach
+    void addUserToRepository() {
+        User user = new User();
+        user.setUsername("Anna");
+        user.setPassword(passwordEncoder.encode("Anna123"));
+        userRepository.save(user);
+
+        account = new Account();
+        account.setUser(user);
+        account.setAccountCurrency(AccountCurrency.RUB);
+        account.setAmount(1500L);
+        accountRepository.save(account);
+    }
+
+    JSONObject getAmountRequest(String field, Object value) {
+        JSONObject request = new JSONObject();
+        request.put(field, value);
+        return request;
+    }
+
+    @DisplayName("Распределенный счет - пополнение и списание по всем слотам")
+    @Test
+    void stripedAccountTest_Ok() throws Exception {
+
+        mockMvc.perform(put("/admin/account/{id}/slots", account.getId())
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getAmountRequest("slots", 4).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(1500));
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getAmountRequest("amount", 500L).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+
+        mockMvc.perform(post("/admin/account/{id}/slots/rebalance", account.getId())
+                        .header("X-SECURITY-ADMIN-KEY", adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getAmountRequest("amount", 1800L).toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(200));
+
+        mockMvc.perform(put("/admin/account/{id}/slots", account.getId())
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getAmountRequest("slots", 0).toString()))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(200));
+    }
+
+    @DisplayName("Настройка слотов пользователем запрещена")
+    @Test
+    void configureSlotsTest_ByUser() throws Exception {
+        mockMvc.perform(put("/admin/account/{id}/slots", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(getAmountRequest("slots", 4).toString()))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -2,9 +2,12 @@ package com.skypro.simplebanking.controller;
 
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.IdempotencyRecord;
 import com.skypro.simplebanking.entity.User;
 import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.IdempotencyRecordRepository;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.IdempotencyService;
 import com.skypro.simplebanking.service.UserService;
 import net.minidev.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
@@ -12,6 +15,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
@@ -27,19 +31,24 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 
 import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
 @SpringBootTest
 @AutoConfigureMockMvc
+@AutoConfigureMetrics
 @Testcontainers
 public class AccountControllerTest {
 
@@ -67,6 +76,10 @@ public class AccountControllerTest {
     private UserService userService;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private IdempotencyService idempotencyService;
+    @Autowired
+    private IdempotencyRecordRepository idempotencyRecordRepository;
 
     @AfterEach
     public void cleanData(){
@@ -149,6 +162,29 @@ public class AccountControllerTest {
                 .andExpect(status().isUnauthorized());
     }
 
+    @DisplayName("Повторная авторизация с неверным паролем после успешной")
+    @Test
+    void getUserAccountTest_CachedCredentialsWrongPassword() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
     @DisplayName("Ошибка получения данных - не верный id аккаунта")
     @Test
     void getUserAccountTest_NotFoundAccountId() throws Exception {
@@ -178,6 +214,68 @@ public class AccountControllerTest {
                 .andExpect(jsonPath("$.amount").value(2000));
     }
 
+    @DisplayName("Получение данных по счету после пополнения")
+    @Test
+    void getUserAccountTest_AfterDeposit() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(1500));
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .content(getBalanceChangeRequest(500L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+    }
+
+    @DisplayName("Повторное получение данных по счету с If-None-Match")
+    @Test
+    void getUserAccountTest_NotModified() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        String etag = mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .content(getBalanceChangeRequest(500L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+    }
+
     @DisplayName("Пополнение счета - сумма меньше нуля")
     @Test
     void depositToAccountTest_AmountWasNotValidated() throws Exception {
@@ -239,4 +337,134 @@ public class AccountControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @DisplayName("Метрики в формате Prometheus содержат счетчик ошибок")
+    @Test
+    void prometheusTest_ErrorCounted() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .content(getBalanceChangeRequest(2000L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/actuator/prometheus")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(
+                        containsString("banking_errors_total{exception=\"InsufficientFundsException\",}")))
+                .andExpect(content().string(containsString("banking_password_bcrypt_seconds_count")))
+                .andExpect(content().string(containsString("banking_transaction_duration_seconds_count")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")));
+    }
+
+    @DisplayName("Повторное пополнение счета с тем же Idempotency-Key выполняется один раз")
+    @Test
+    void depositToAccountTest_SameIdempotencyKey() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    getAuthenticationHeader(user.getUsername(), "Anna123"))
+                            .header("Idempotency-Key", "deposit-once")
+                            .content(getBalanceChangeRequest(500L).toString())
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.amount").value(2000));
+        }
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+    }
+
+    @DisplayName("Idempotency-Key повторно использован для другой операции")
+    @Test
+    void withdrawFromAccountTest_IdempotencyKeyReused() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header("Idempotency-Key", "reused-key")
+                        .content(getBalanceChangeRequest(500L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header("Idempotency-Key", "reused-key")
+                        .content(getBalanceChangeRequest(500L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+    }
+
+    @DisplayName("Idempotency-Key повторно использован с другим телом запроса")
+    @Test
+    void depositToAccountTest_IdempotencyKeyReusedWithOtherBody() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header("Idempotency-Key", "deposit-body")
+                        .content(getBalanceChangeRequest(500L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header("Idempotency-Key", "deposit-body")
+                        .content(getBalanceChangeRequest(300L).toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000));
+    }
+
+    @DisplayName("Устаревшие Idempotency-Key удаляются")
+    @Test
+    void purgeIdempotencyKeysTest_Expired() throws Exception {
+
+        Account account = getAnyAccount();
+        User user = account.getUser();
+
+        for (String key : List.of("purge-old", "purge-new")) {
+            mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    getAuthenticationHeader(user.getUsername(), "Anna123"))
+                            .header("Idempotency-Key", key)
+                            .content(getBalanceChangeRequest(500L).toString())
+                            .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isOk());
+        }
+        IdempotencyRecord old = idempotencyRecordRepository
+                .findByUserIdAndIdempotencyKey(user.getId(), "purge-old").orElseThrow();
+        old.setCreatedAt(old.getCreatedAt().minus(Duration.ofDays(2)));
+        idempotencyRecordRepository.save(old);
+
+        idempotencyService.purgeExpired();
+
+        assertThat(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(user.getId(), "purge-old")).isEmpty();
+        assertThat(idempotencyRecordRepository.findByUserIdAndIdempotencyKey(user.getId(), "purge-new")).isPresent();
+    }
 }
@@ -0,0 +1,194 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.entity.AccountCurrency;
+import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import net.minidev.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+
+import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+@ActiveProfiles("async")
+public class AsyncAccountControllerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    private User anna;
+    private User oleg;
+
+    @AfterEach
+    public void cleanData(){
+        userRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @BeforeEach
+    void addUsersToRepository() {
+        anna = createUser("Anna", "Anna123");
+        oleg = createUser("Oleg", "Oleg123");
+    }
+
+    User createUser(String username, String password) {
+        User user = new User();
+        user.setUsername(username);
+        user.setPassword(passwordEncoder.encode(password));
+        userRepository.save(user);
+        user.setAccounts(new ArrayList<>());
+        for (AccountCurrency currency : AccountCurrency.values()) {
+            Account account = new Account();
+            account.setUser(user);
+            account.setAccountCurrency(currency);
+            account.setAmount(1500L);
+            user.getAccounts().add(account);
+            accountRepository.save(account);
+        }
+        return user;
+    }
+
+    Account getAccount(User user, AccountCurrency currency) {
+        return user.getAccounts().stream()
+                .filter(account -> account.getAccountCurrency() == currency)
+                .findFirst()
+                .orElseThrow();
+    }
+
+    @DisplayName("Получение данных по счету в профиле async")
+    @Test
+    void getUserAccountTest_Async() throws Exception {
+
+        Account account = getAccount(anna, AccountCurrency.RUB);
+
+        MvcResult result = mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String etag = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.id").value(account.getId()))
+                .andExpect(jsonPath("$.amount").value(1500L))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        result = mockMvc.perform(get("/account/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isNotModified());
+    }
+
+    @DisplayName("Пополнение и списание в профиле async")
+    @Test
+    void depositAndWithdrawTest_Async() throws Exception {
+
+        Account account = getAccount(anna, AccountCurrency.RUB);
+        JSONObject balanceChangeRequest = new JSONObject();
+        balanceChangeRequest.put("amount", 500L);
+
+        MvcResult result = mockMvc.perform(post("/account/deposit/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .content(balanceChangeRequest.toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.amount").value(2000L));
+
+        balanceChangeRequest.put("amount", 5000L);
+        result = mockMvc.perform(post("/account/withdraw/{id}", account.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .content(balanceChangeRequest.toString())
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isBadRequest());
+    }
+
+    @DisplayName("Перевод средств в профиле async")
+    @Test
+    void transferTest_Async() throws Exception {
+
+        Account fromAccount = getAccount(anna, AccountCurrency.RUB);
+        Account toAccount = getAccount(oleg, AccountCurrency.RUB);
+        JSONObject transfer = new JSONObject();
+        transfer.put("fromAccountId", fromAccount.getId());
+        transfer.put("toUserId", oleg.getId());
+        transfer.put("toAccountId", toAccount.getId());
+        transfer.put("amount", 500L);
+
+        MvcResult result = mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+
+        result = mockMvc.perform(get("/account/{id}", toAccount.getId())
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Oleg", "Oleg123")))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(jsonPath("$.amount").value(2000L));
+    }
+}
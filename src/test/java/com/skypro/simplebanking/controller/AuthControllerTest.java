@@ -0,0 +1,91 @@
+package com.skypro.simplebanking.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+public class AuthControllerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    public void cleanData(){
+        userRepository.deleteAll();
+        userService.createUser("Anna", "Anna123");
+    }
+
+    @DisplayName("Получение токена и доступ к профилю по токену")
+    @Test
+    void issueTokenTest_Ok() throws Exception {
+
+        String response = mockMvc.perform(post("/auth/token")
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "Anna123")))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").isNotEmpty())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode token = objectMapper.readTree(response);
+
+        mockMvc.perform(get("/user/me")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.get("token").asText()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.username").value("Anna"));
+    }
+
+    @DisplayName("Ошибка при получении токена - неверный пароль")
+    @Test
+    void issueTokenTest_Unauthorized() throws Exception {
+        mockMvc.perform(post("/auth/token")
+                        .header(HttpHeaders.AUTHORIZATION, getAuthenticationHeader("Anna", "wrong")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @DisplayName("Ошибка авторизации - поддельный токен")
+    @Test
+    void bearerTokenTest_Forged() throws Exception {
+        mockMvc.perform(get("/user/me")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer MTphZG1pbg.Zm9yZ2Vk"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,58 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.service.AccountService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the tests of {@link AccountControllerTest} with balances kept by the in-memory ledger engine.
+ * Snapshots are left to the engine's shutdown so they cannot race with the per-test cleanup.
+ */
+@TestPropertySource(properties = {"app.ledger.engine=memory", "app.ledger.snapshot-interval=PT1H"})
+public class LedgerEngineAccountControllerTest extends AccountControllerTest {
+
+    @DynamicPropertySource
+    static void ledgerProperties(DynamicPropertyRegistry registry) throws IOException {
+        Path walDirectory = Files.createTempDirectory("ledger-wal");
+        registry.add("app.ledger.wal-dir", walDirectory::toString);
+    }
+
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @DisplayName("Чтение счёта между фиксацией и расчётом движка не оставляет в кэше старый баланс")
+    @Test
+    void getUserAccountTest_ReadBeforeSettlement() {
+
+        Account account = getAnyAccount();
+        long userId = account.getUser().getId();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            accountService.depositToAccount(userId, account.getId(), 500L);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accountService.getAccount(userId, account.getId());
+                }
+            });
+        });
+
+        assertThat(accountService.getAccount(userId, account.getId()).getAmount()).isEqualTo(2000L);
+    }
+}
@@ -3,9 +3,14 @@ package com.skypro.simplebanking.controller;
 import com.skypro.simplebanking.entity.Account;
 import com.skypro.simplebanking.entity.AccountCurrency;
 import com.skypro.simplebanking.entity.User;
+import com.skypro.simplebanking.dto.JournalBalanceView;
 import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.JournalEntryRepository;
 import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.AccountLockManager;
 import com.skypro.simplebanking.service.UserService;
+import com.jayway.jsonpath.JsonPath;
+import net.minidev.json.JSONArray;
 import net.minidev.json.JSONObject;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -29,11 +34,16 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
 
 import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -66,6 +76,10 @@ public class TransferControllerTest {
     private UserService userService;
     @Autowired
     private PasswordEncoder passwordEncoder;
+    @Autowired
+    private JournalEntryRepository journalEntryRepository;
+    @Autowired
+    private AccountLockManager accountLockManager;
 
     @AfterEach
     public void cleanData(){
@@ -156,6 +170,120 @@ public class TransferControllerTest {
                 .andExpect(status().isOk());
     }
 
+    @DisplayName("Перевод средств - балансы обоих счетов изменены")
+    @Test
+    void transferTest_BalancesUpdated() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONObject transfer = getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L);
+
+        mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(status().isOk());
+
+        assertThat(accountRepository.findById(fromAccount.getId()).orElseThrow().getAmount()).isEqualTo(1000L);
+        assertThat(accountRepository.findById(toAccount.getId()).orElseThrow().getAmount()).isEqualTo(2000L);
+    }
+
+    @DisplayName("Асинхронный перевод средств - статус перевода")
+    @Test
+    void transferTest_Async() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONObject transfer = getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L);
+
+        String location = mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        String transferStatus = "PENDING";
+        for (int i = 0; i < 50 && transferStatus.equals("PENDING"); i++) {
+            Thread.sleep(100);
+            String response = mockMvc.perform(get(location)
+                            .header(HttpHeaders.AUTHORIZATION,
+                                    getAuthenticationHeader(fromUser.getUsername(), "Anna123")))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            transferStatus = JsonPath.read(response, "$.status");
+        }
+
+        assertThat(transferStatus).isEqualTo("COMPLETED");
+        assertThat(accountRepository.findById(fromAccount.getId()).orElseThrow().getAmount()).isEqualTo(1000L);
+        assertThat(accountRepository.findById(toAccount.getId()).orElseThrow().getAmount()).isEqualTo(2000L);
+    }
+
+    @DisplayName("Асинхронный перевод средств - статус чужого перевода не найден")
+    @Test
+    void transferTest_AsyncStatusOfAnotherUser() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONObject transfer = getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L);
+
+        String location = mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+
+        mockMvc.perform(get(location)
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(toUser.getUsername(), "Oleg123")))
+                .andExpect(status().isNotFound());
+    }
+
+    @DisplayName("Перевод средств - записи в журнале по обоим счетам")
+    @Test
+    void transferTest_JournalEntriesWritten() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONObject transfer = getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L);
+
+        mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(status().isOk());
+
+        List<JournalBalanceView> balances = journalEntryRepository.findBalancesAfter(fromAccount.getId() - 1, 1);
+        assertThat(balances.get(0).getJournalBalance()).isEqualTo(-500L);
+        balances = journalEntryRepository.findBalancesAfter(toAccount.getId() - 1, 1);
+        assertThat(balances.get(0).getJournalBalance()).isEqualTo(500L);
+    }
+
     @DisplayName("Перевод средств между счетами разных пользователей - разные валюты")
     @Test
     void transferTest_IncorrectAccountCurrency() throws Exception {
@@ -241,4 +369,130 @@ public class TransferControllerTest {
                 .andExpect(status().isNotFound());
 
     }
+
+    @DisplayName("Пакетный перевод - ошибочная операция откатывает весь пакет")
+    @Test
+    void transferBatchTest_AtomicRollback() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONArray batch = new JSONArray();
+        batch.add(getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L));
+        batch.add(getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 5000L));
+
+        mockMvc.perform(post("/transfer/batch")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("ROLLED_BACK"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"));
+
+        assertThat(accountRepository.findById(fromAccount.getId()).orElseThrow().getAmount()).isEqualTo(1500L);
+    }
+
+    @DisplayName("Пакетный перевод - успешные операции сохраняются в неатомарном режиме")
+    @Test
+    void transferBatchTest_PerItem() throws Exception {
+
+        User fromUser = getFirstUser();
+        Account fromAccount = getAccountsUser(fromUser).get(2);
+
+        User toUser= getSecondUser();
+        Account toAccount = getAccountsUser(toUser).get(2);
+
+        JSONArray batch = new JSONArray();
+        batch.add(getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 500L));
+        batch.add(getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 5000L));
+        batch.add(getTransferRequest(fromAccount.getId(), toUser.getId(), toAccount.getId(), 300L));
+
+        mockMvc.perform(post("/transfer/batch")
+                        .param("atomic", "false")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(fromUser.getUsername(), "Anna123"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(batch.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$[1].status").value("FAILED"))
+                .andExpect(jsonPath("$[2].status").value("COMPLETED"));
+
+        assertThat(accountRepository.findById(fromAccount.getId()).orElseThrow().getAmount()).isEqualTo(700L);
+        assertThat(accountRepository.findById(toAccount.getId()).orElseThrow().getAmount()).isEqualTo(2300L);
+    }
+
+    @DisplayName("Асинхронный перевод средств - занятый счёт не задерживает другие переводы")
+    @Test
+    void transferTest_AsyncWithBusyAccount() throws Exception {
+
+        User fromUser = getFirstUser();
+        List<Account> fromAccounts = getAccountsUser(fromUser);
+
+        User toUser = getSecondUser();
+        List<Account> toAccounts = getAccountsUser(toUser);
+
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> accountLockManager.withLocks(
+                "test", Set.of(fromAccounts.get(0).getId()), () -> {
+                    locked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return null;
+                }));
+        holder.start();
+        locked.await();
+
+        String busyLocation = submitTransfer(fromUser, getTransferRequest(
+                fromAccounts.get(0).getId(), toUser.getId(), toAccounts.get(0).getId(), 500L));
+        String freeLocation = submitTransfer(fromUser, getTransferRequest(
+                fromAccounts.get(1).getId(), toUser.getId(), toAccounts.get(1).getId(), 500L));
+
+        assertThat(awaitTransferStatus(fromUser, freeLocation)).isEqualTo("COMPLETED");
+        assertThat(getTransferStatus(fromUser, busyLocation)).isEqualTo("PENDING");
+
+        release.countDown();
+        holder.join();
+
+        assertThat(awaitTransferStatus(fromUser, busyLocation)).isEqualTo("COMPLETED");
+        assertThat(accountRepository.findById(fromAccounts.get(0).getId()).orElseThrow().getAmount()).isEqualTo(1000L);
+        assertThat(accountRepository.findById(fromAccounts.get(1).getId()).orElseThrow().getAmount()).isEqualTo(1000L);
+    }
+
+    String submitTransfer(User user, JSONObject transfer) throws Exception {
+        return mockMvc.perform(post("/transfer")
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123"))
+                        .header("Prefer", "respond-async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(transfer.toString()))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+    }
+
+    String getTransferStatus(User user, String location) throws Exception {
+        String response = mockMvc.perform(get(location)
+                        .header(HttpHeaders.AUTHORIZATION,
+                                getAuthenticationHeader(user.getUsername(), "Anna123")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.read(response, "$.status");
+    }
+
+    String awaitTransferStatus(User user, String location) throws Exception {
+        String transferStatus = "PENDING";
+        for (int i = 0; i < 50 && transferStatus.equals("PENDING"); i++) {
+            Thread.sleep(100);
+            transferStatus = getTransferStatus(user, location);
+        }
+        return transferStatus;
+    }
 }
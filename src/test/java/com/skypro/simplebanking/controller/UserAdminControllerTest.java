@@ -0,0 +1,151 @@
+package com.skypro.simplebanking.controller;
+
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import com.skypro.simplebanking.service.UserService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Testcontainers
+public class UserAdminControllerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    MockMvc mockMvc;
+    @Value("${app.security.admin-token}")
+    private String adminToken;
+
+    @AfterEach
+    public void cleanData(){
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("Импорт пользователей из JSON Lines")
+    @Test
+    void importUsersTest_JsonLines() throws Exception {
+
+        userService.createUser("Anna", "Anna123");
+
+        String body = "{\"username\":\"Oleg\",\"password\":\"Oleg123\"}\n"
+                + "{\"username\":\"Anna\",\"password\":\"Anna123\"}\n"
+                + "not json\n"
+                + "{\"username\":\"Ivan\",\"password\":\"Ivan123\"}\n";
+
+        MvcResult result = mockMvc.perform(post("/admin/user/import")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).contains("\"status\":\"CREATED\"");
+        assertThat(lines[1]).contains("\"status\":\"FAILED\"");
+        assertThat(lines[2]).contains("\"status\":\"FAILED\"");
+        assertThat(lines[3]).contains("\"status\":\"CREATED\"");
+        assertThat(userRepository.findByUsername("Ivan")).isPresent();
+        assertThat(accountRepository.findAll()).hasSize(9);
+    }
+
+    @DisplayName("Импорт пользователей из CSV")
+    @Test
+    void importUsersTest_Csv() throws Exception {
+
+        String body = "username,password\nOleg,Oleg123\nIvan,Ivan,123\n";
+
+        MvcResult result = mockMvc.perform(post("/admin/user/import")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType("text/csv")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertThat(response.split("\n")).hasSize(2).allMatch(line -> line.contains("CREATED"));
+        assertThat(userRepository.findAll()).hasSize(2);
+    }
+
+    @DisplayName("Импорт пользователей с недопустимыми полями")
+    @Test
+    void importUsersTest_InvalidRows() throws Exception {
+
+        String body = "{\"username\":\" \",\"password\":\"Oleg123\"}\n"
+                + "{\"username\":\"" + "a".repeat(256) + "\",\"password\":\"Ivan123\"}\n"
+                + "{\"username\":\"Anna\"}\n"
+                + "{\"username\":\"Oleg\",\"password\":\"Oleg123\"}\n";
+
+        MvcResult result = mockMvc.perform(post("/admin/user/import")
+                        .header("X-SECURITY-ADMIN-KEY", adminToken)
+                        .contentType("application/x-ndjson")
+                        .content(body))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String response = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = response.split("\n");
+        assertThat(lines).hasSize(4);
+        assertThat(lines[0]).contains("\"status\":\"FAILED\"").contains("username: must not be blank");
+        assertThat(lines[1]).contains("\"status\":\"FAILED\"").contains("username: length must be between 0 and 255");
+        assertThat(lines[2]).contains("\"status\":\"FAILED\"").contains("password: must not be blank");
+        assertThat(lines[3]).contains("\"status\":\"CREATED\"");
+        assertThat(userRepository.findAll()).hasSize(1);
+    }
+
+    @DisplayName("Импорт пользователей без ключа администратора")
+    @Test
+    void importUsersTest_WithoutAdminKey() throws Exception {
+
+        mockMvc.perform(post("/admin/user/import")
+                        .contentType("text/csv")
+                        .content("Oleg,Oleg123\n"))
+                .andExpect(status().isUnauthorized());
+    }
+}
@@ -1,8 +1,11 @@
 package com.skypro.simplebanking.controller;
 
+import com.skypro.simplebanking.exception.UserAlreadyExistsException;
 import com.skypro.simplebanking.repository.AccountRepository;
 import com.skypro.simplebanking.repository.UserRepository;
 import com.skypro.simplebanking.service.UserService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,21 +18,32 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static com.skypro.simplebanking.forTests.ForTests.createUser;
 import static com.skypro.simplebanking.forTests.ForTests.getAuthenticationHeader;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -64,6 +78,9 @@ public class UserControllerTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     public void cleanData(){
         userRepository.deleteAll();
@@ -122,6 +139,29 @@ public class UserControllerTest {
                 .andExpect(status().isBadRequest());
     }
 
+    @DisplayName("Одновременное создание пользователей с одинаковым именем")
+    @Test
+    void createUserTest_ConcurrentSameUsername() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> attempts = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            attempts.add(executor.submit(() -> userService.createUser("Anna", "Anna123")));
+        }
+        int created = 0;
+        for (Future<?> attempt : attempts) {
+            try {
+                attempt.get();
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(UserAlreadyExistsException.class);
+            }
+        }
+        executor.shutdown();
+
+        assertThat(created).isEqualTo(1);
+        assertThat(userRepository.count()).isEqualTo(1);
+    }
+
     @DisplayName("Получение всех пользователей")
     @Test
     @WithMockUser(roles = "USER")
@@ -139,6 +179,72 @@ public class UserControllerTest {
                 .andExpect(jsonPath("$.length()").value(3));
     }
 
+    @DisplayName("Получение пользователей постранично")
+    @Test
+    @WithMockUser(roles = "USER")
+    void getAllUsersTest_Paginated() throws Exception {
+
+        addThreeUsersToRepository();
+
+        String nextCursor = mockMvc.perform(get("/user/list").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].username").value("Anna"))
+                .andExpect(jsonPath("$[1].username").value("Oleg"))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn().getResponse().getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/user/list").param("after", nextCursor).param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].username").value("Ivan"))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @DisplayName("Получение всех пользователей - число запросов не зависит от числа пользователей")
+    @Test
+    @WithMockUser(roles = "USER")
+    void getAllUsersTest_ConstantStatementCount() throws Exception {
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        addThreeUsersToRepository();
+        statistics.clear();
+        mockMvc.perform(get("/user/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3));
+        long statementsForThreeUsers = statistics.getPrepareStatementCount();
+
+        userService.createUser("Petr", "Petr123");
+        userService.createUser("Olga", "Olga123");
+        userService.createUser("Igor", "Igor123");
+        statistics.clear();
+        mockMvc.perform(get("/user/list"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(6))
+                .andExpect(jsonPath("$[5].accounts.length()").value(3));
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementsForThreeUsers);
+    }
+
+    @DisplayName("Потоковая выгрузка всех пользователей")
+    @Test
+    @WithMockUser(roles = "USER")
+    void exportUsersTest_Ok() throws Exception {
+
+        addThreeUsersToRepository();
+
+        MvcResult result = mockMvc.perform(get("/user/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].username").value("Anna"))
+                .andExpect(jsonPath("$[0].accounts.length()").value(3));
+    }
+
     @DisplayName("Попытка получить всех пользователей Админом")
     @Test
     @WithMockUser(roles = "ADMIN")
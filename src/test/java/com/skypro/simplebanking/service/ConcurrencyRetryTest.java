@@ -0,0 +1,123 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.entity.Account;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Testcontainers
+public class ConcurrencyRetryTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private ConcurrencyRetry concurrencyRetry;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Value("${app.retry.max-attempts}")
+    private int maxAttempts;
+
+    private long accountId;
+
+    @BeforeEach
+    void addUserToRepository() {
+        accountId = userService.createUser("Anna", "Anna123").getAccounts().get(0).getId();
+    }
+
+    @AfterEach
+    public void cleanData() {
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("Конфликт оптимистической блокировки повторяется до успеха")
+    @Test
+    void executeTest_RetriedAfterConflict() {
+
+        AtomicInteger attempts = new AtomicInteger();
+        double retries = counter("banking.concurrency.retries");
+
+        concurrencyRetry.run("test", () -> depositWithConflict(attempts.incrementAndGet() == 1));
+
+        assertThat(attempts.get()).isEqualTo(2);
+        assertThat(counter("banking.concurrency.retries")).isEqualTo(retries + 1);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(101L);
+    }
+
+    @DisplayName("Конфликт оптимистической блокировки на каждой попытке возвращает ошибку")
+    @Test
+    void executeTest_AttemptsExhausted() {
+
+        AtomicInteger attempts = new AtomicInteger();
+        double giveUps = counter("banking.concurrency.give-ups");
+
+        assertThatThrownBy(() -> concurrencyRetry.run("test", () -> {
+            attempts.incrementAndGet();
+            depositWithConflict(true);
+        })).isInstanceOf(ObjectOptimisticLockingFailureException.class);
+
+        assertThat(attempts.get()).isEqualTo(maxAttempts);
+        assertThat(counter("banking.concurrency.give-ups")).isEqualTo(giveUps + 1);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(1L);
+    }
+
+    /** Reads the account, lets another transaction update it if asked, then writes it back. */
+    private void depositWithConflict(boolean conflict) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Account account = accountRepository.findById(accountId).orElseThrow();
+            if (conflict) {
+                TransactionTemplate other = new TransactionTemplate(transactionTemplate.getTransactionManager());
+                other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                other.executeWithoutResult(otherStatus ->
+                        jdbcTemplate.update("UPDATE accounts SET version = version + 1 WHERE id = ?", accountId));
+            }
+            account.setAmount(account.getAmount() + 100);
+            accountRepository.saveAndFlush(account);
+        });
+    }
+
+    private double counter(String name) {
+        return meterRegistry.counter(name, "operation", "test").count();
+    }
+}
@@ -0,0 +1,156 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.AccountDTO;
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.exception.AccountNotFoundException;
+import com.skypro.simplebanking.exception.InvalidAmountException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntToLongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "app.deposit.coalescing.enabled=true",
+        "app.deposit.coalescing.window=200ms"})
+public class DepositCoalescerTest {
+
+    private static final int DEPOSITS = 8;
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private DepositCoalescer depositCoalescer;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(DEPOSITS);
+    private long userId;
+    private long accountId;
+
+    @BeforeEach
+    void addUserToRepository() {
+        UserDTO user = userService.createUser("Anna", "Anna123");
+        userId = user.getId();
+        accountId = user.getAccounts().get(0).getId();
+    }
+
+    @AfterEach
+    public void cleanData() {
+        executor.shutdownNow();
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("Одновременные пополнения счёта объединяются в пределах окна")
+    @Test
+    void depositTest_CoalescedWithinWindow() throws Exception {
+
+        DistributionSummary groups = meterRegistry.summary("banking.deposit.coalesced");
+        long groupsBefore = groups.count();
+
+        List<Future<AccountDTO>> results = depositConcurrently(i -> 100L);
+
+        List<Long> balances = new ArrayList<>();
+        for (Future<AccountDTO> result : results) {
+            balances.add(result.get().getAmount());
+        }
+        assertThat(balances).containsExactlyInAnyOrder(101L, 201L, 301L, 401L, 501L, 601L, 701L, 801L);
+        assertThat(groups.count() - groupsBefore).isLessThan(DEPOSITS);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(801L);
+    }
+
+    @DisplayName("Недопустимая сумма одного пополнения не влияет на остальные")
+    @Test
+    void depositTest_InvalidMember() throws Exception {
+
+        List<Future<AccountDTO>> results = depositConcurrently(i -> i == 0 ? -100L : 100L);
+
+        assertThatThrownBy(() -> results.get(0).get()).hasCauseInstanceOf(InvalidAmountException.class);
+        for (Future<AccountDTO> result : results.subList(1, DEPOSITS)) {
+            assertThat(result.get().getAmount()).isPositive();
+        }
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(701L);
+    }
+
+    @DisplayName("Ошибка применения группы передаётся каждому её участнику")
+    @Test
+    void depositTest_GroupFailure() throws Exception {
+
+        accountId = Long.MAX_VALUE;
+        List<Future<AccountDTO>> results = depositConcurrently(i -> 100L);
+
+        for (Future<AccountDTO> result : results) {
+            assertThatThrownBy(result::get)
+                    .isInstanceOf(ExecutionException.class)
+                    .hasCauseInstanceOf(AccountNotFoundException.class);
+        }
+    }
+
+    @DisplayName("Пакет пополнений с отрицательной суммой отклоняется")
+    @Test
+    void depositAllTest_NegativeAmount() {
+
+        assertThatThrownBy(() -> accountService.depositAllToAccount(userId, accountId, List.of(100L, -50L)))
+                .isInstanceOf(InvalidAmountException.class);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(1L);
+    }
+
+    private List<Future<AccountDTO>> depositConcurrently(IntToLongFunction amounts) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<AccountDTO>> results = new ArrayList<>();
+        for (int i = 0; i < DEPOSITS; i++) {
+            long amount = amounts.applyAsLong(i);
+            Callable<AccountDTO> deposit = () -> {
+                start.await();
+                return depositCoalescer.deposit(userId, accountId, amount);
+            };
+            results.add(executor.submit(deposit));
+        }
+        start.countDown();
+        return results;
+    }
+}
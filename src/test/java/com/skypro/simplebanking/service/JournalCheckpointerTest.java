@@ -0,0 +1,117 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Testcontainers
+public class JournalCheckpointerTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JournalCheckpointer journalCheckpointer;
+    @Autowired
+    private AccountService accountService;
+    @Autowired
+    private UserService userService;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private long userId;
+    private long accountId;
+
+    @BeforeEach
+    void addUserToRepository() {
+        UserDTO user = userService.createUser("Anna", "Anna123");
+        userId = user.getId();
+        accountId = user.getAccounts().get(0).getId();
+    }
+
+    @AfterEach
+    public void cleanData() {
+        userRepository.deleteAll();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("DELETE FROM journal_checkpoints"));
+    }
+
+    @DisplayName("Контрольная точка журнала добавляет только новые записи")
+    @Test
+    void verifyTest_AddsNewerEntries() {
+
+        accountService.depositToAccount(userId, accountId, 500L);
+        Instant first = Instant.now();
+        journalCheckpointer.verify(first);
+
+        assertThat(journalSum()).isEqualTo(501L);
+
+        accountService.withdrawFromAccount(userId, accountId, 200L);
+        double mismatches = mismatches();
+        journalCheckpointer.verify(first);
+
+        assertThat(journalSum()).isEqualTo(501L);
+        assertThat(mismatches()).isEqualTo(mismatches);
+
+        journalCheckpointer.verify(Instant.now());
+
+        assertThat(journalSum()).isEqualTo(301L);
+        assertThat(mismatches()).isEqualTo(mismatches);
+    }
+
+    @DisplayName("Контрольная точка журнала обнаруживает расхождение с балансом")
+    @Test
+    void verifyTest_Mismatch() {
+
+        journalCheckpointer.verify(Instant.now());
+        double mismatches = mismatches();
+
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE accounts SET amount = 1500 WHERE id = ?", accountId));
+        journalCheckpointer.verify(Instant.now());
+
+        assertThat(mismatches()).isEqualTo(mismatches + 1);
+    }
+
+    private long journalSum() {
+        return jdbcTemplate.queryForObject(
+                "SELECT journal_sum FROM journal_checkpoints WHERE account_id = ?", Long.class, accountId);
+    }
+
+    private double mismatches() {
+        return meterRegistry.counter("banking.journal.mismatches").count();
+    }
+}
@@ -0,0 +1,205 @@
+package com.skypro.simplebanking.service;
+
+import com.skypro.simplebanking.dto.UserDTO;
+import com.skypro.simplebanking.exception.InsufficientFundsException;
+import com.skypro.simplebanking.repository.AccountRepository;
+import com.skypro.simplebanking.repository.LedgerCheckpointRepository;
+import com.skypro.simplebanking.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs {@link LedgerEngine} instances outside the application context, which keeps the JPA engine.
+ * A crash is simulated by copying the write-ahead log at the moment of interest and recovering a
+ * second engine from the copy.
+ */
+@SpringBootTest
+@Testcontainers
+public class LedgerEngineTest {
+
+    @Container
+    private static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:13")
+            .withUsername("postgres")
+            .withPassword("Anna_098!");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private AccountRepository accountRepository;
+    @Autowired
+    private LedgerCheckpointRepository ledgerCheckpointRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private UserService userService;
+
+    @TempDir
+    Path temporaryDirectory;
+
+    private final List<LedgerEngine> engines = new ArrayList<>();
+    private long userId;
+    private long accountId;
+
+    @BeforeEach
+    void addUserToRepository() {
+        UserDTO user = userService.createUser("Anna", "Anna123");
+        userId = user.getId();
+        accountId = user.getAccounts().get(0).getId();
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.update("UPDATE accounts SET amount = 1500 WHERE id = ?", accountId));
+    }
+
+    @AfterEach
+    public void cleanData() {
+        for (int i = engines.size() - 1; i >= 0; i--) {
+            if (engines.get(i).isRunning()) {
+                engines.get(i).stop();
+            }
+        }
+        userRepository.deleteAll();
+    }
+
+    @DisplayName("Восстановление после сбоя между записью журнала и отметкой фиксации - транзакция зафиксирована")
+    @Test
+    void recoverTest_CommittedWithoutMarker() {
+
+        Path live = temporaryDirectory.resolve("live");
+        Path crashed = temporaryDirectory.resolve("crashed");
+        LedgerEngine engine = startEngine(live);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            engine.deposit(userId, accountId, 500);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    copyLog(live, crashed);
+                }
+            });
+        });
+
+        assertThat(engine.balance(accountId)).hasValue(2000);
+        assertThat(startEngine(crashed).balance(accountId)).hasValue(2000);
+    }
+
+    @DisplayName("Восстановление после сбоя между записью журнала и откатом транзакции")
+    @Test
+    void recoverTest_RolledBackWithoutMarker() {
+
+        Path live = temporaryDirectory.resolve("live");
+        Path crashed = temporaryDirectory.resolve("crashed");
+        LedgerEngine engine = startEngine(live);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            engine.withdraw(userId, accountId, 500);
+            copyLog(live, crashed);
+            status.setRollbackOnly();
+        });
+
+        assertThat(engine.balance(accountId)).hasValue(1500);
+        assertThat(startEngine(crashed).balance(accountId)).hasValue(1500);
+    }
+
+    @DisplayName("Откат транзакции отменяет списание, повтор применяет его один раз")
+    @Test
+    void withdrawTest_RolledBackThenRetried() {
+
+        Path live = temporaryDirectory.resolve("live");
+        LedgerEngine engine = startEngine(live);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            engine.withdraw(userId, accountId, 500);
+            status.setRollbackOnly();
+        });
+        transactionTemplate.executeWithoutResult(status -> engine.withdraw(userId, accountId, 500));
+
+        assertThat(engine.balance(accountId)).hasValue(1000);
+        engine.stop();
+        assertThat(startEngine(live).balance(accountId)).hasValue(1000);
+        assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(1000L);
+    }
+
+    @DisplayName("Незафиксированное пополнение нельзя потратить и оно не попадает в снимок")
+    @Test
+    void depositTest_HeldUntilCommit() {
+
+        Path live = temporaryDirectory.resolve("live");
+        LedgerEngine engine = startEngine(live);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            engine.deposit(userId, accountId, 500);
+
+            assertThat(engine.balance(accountId)).hasValue(1500);
+            assertThatThrownBy(() -> engine.withdraw(userId, accountId, 1600))
+                    .isInstanceOf(InsufficientFundsException.class);
+
+            // Stopping writes a snapshot while the deposit is still unsettled.
+            engine.stop();
+            assertThat(accountRepository.findById(accountId).orElseThrow().getAmount()).isEqualTo(1500L);
+        });
+
+        assertThat(startEngine(live).balance(accountId)).hasValue(2000);
+    }
+
+    private LedgerEngine startEngine(Path walDirectory) {
+        LedgerEngine engine = new LedgerEngine(
+                jdbcTemplate,
+                transactionTemplate,
+                accountRepository,
+                ledgerCheckpointRepository,
+                walDirectory,
+                1024,
+                64,
+                Duration.ofHours(1));
+        engine.start();
+        engines.add(engine);
+        return engine;
+    }
+
+    private static void copyLog(Path from, Path to) {
+        try (Stream<Path> files = Files.list(from)) {
+            Files.createDirectories(to);
+            for (Path file : files.collect(Collectors.toList())) {
+                Files.copy(file, to.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}